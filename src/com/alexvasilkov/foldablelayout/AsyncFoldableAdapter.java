@@ -0,0 +1,48 @@
+package com.alexvasilkov.foldablelayout;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 数据需要耗时准备的适配器，和{@link FoldableListLayout}一起使用时不会在翻转过程中阻塞主线程：
+ * <p/>
+ * 先用{@link #getPlaceholderView(int, View, ViewGroup)}显示一个轻量的占位页，同时在后台线程中调用
+ * {@link #loadItem(int)}准备数据(读取数据、预先排版文字等)，准备好之后回到主线程用
+ * {@link #getView(int, Object, View, ViewGroup)}重新绑定这一页。数据准备好之前这一页已经被翻走的话，结果会被丢弃
+ * <p/>
+ * 在其他地方使用时和普通的BaseAdapter一样，{@link #getView(int, View, ViewGroup)}会在当前线程中直接准备数据
+ * @param <T> 准备好的数据
+ */
+public abstract class AsyncFoldableAdapter<T> extends FoldableAdapter {
+
+    /**
+     * 在后台线程中准备position这一页的数据
+     * @param position
+     * @return 传给{@link #getView(int, Object, View, ViewGroup)}的数据
+     */
+    public abstract T loadItem(int position);
+
+    /**
+     * 数据准备好之前显示的占位页，所有position共用一种view类型，快速翻过多页时也用它代替完整绑定
+     * @param position
+     * @param convertView 可以复用的占位页
+     * @param parent
+     */
+    @Override
+    public abstract View getPlaceholderView(int position, View convertView, ViewGroup parent);
+
+    /**
+     * 用准备好的数据创建或绑定这一页 在主线程调用
+     * @param position
+     * @param data {@link #loadItem(int)}返回的数据
+     * @param convertView 可以复用的view，和{@link #getItemViewType(int)}的类型一致
+     * @param parent
+     */
+    public abstract View getView(int position, T data, View convertView, ViewGroup parent);
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        return getView(position, loadItem(position), convertView, parent);
+    }
+
+}
@@ -0,0 +1,386 @@
+package com.alexvasilkov.foldablelayout;
+
+import android.animation.TimeInterpolator;
+import android.annotation.SuppressLint;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+/**
+ * 翻转角度的动画，代替通过反射调用setter的ObjectAnimator：
+ * <p/>
+ * 支持三种方式：按时长和插值器的普通动画{@link #animateTo(float, float, long)}、
+ * 弹簧{@link #springTo(float, float, float)}和按摩擦力减速{@link #decay(float, float, float, float)}。
+ * 所有状态都保存在基本类型的字段里，开始或中途改变目标时都不分配对象
+ * <p/>
+ * 每一帧由{@link FrameClock}驱动，默认使用Choreographer(API 16以下使用Handler)，也可以换成调用者自己的时钟
+ */
+@SuppressLint("NewApi")
+public class FoldAnimator {
+
+    //默认弹簧参数 刚度100时大约0.6秒停下，和原来每页600毫秒的动画接近
+    public static final float DEFAULT_STIFFNESS = 100f;
+    public static final float DEFAULT_DAMPING_RATIO = 1f;
+    //默认减速的摩擦系数 速度每秒衰减为原来的e^-4
+    public static final float DEFAULT_FRICTION = 4f;
+
+    //弹簧和减速动画 位置和速度都小于这个值时认为停下了
+    private static final float VALUE_THRESHOLD = 0.1f;
+    private static final float VELOCITY_THRESHOLD = 5f;
+
+    private static final int MODE_NONE = 0;
+    private static final int MODE_TWEEN = 1;
+    private static final int MODE_SPRING = 2;
+    private static final int MODE_DECAY = 3;
+
+    private final Listener mListener;
+    private FrameClock mFrameClock;
+    private TimeInterpolator mInterpolator = new AccelerateDecelerateInterpolator();
+    private float mStiffness = DEFAULT_STIFFNESS;
+    private float mDampingRatio = DEFAULT_DAMPING_RATIO;
+    private float mFriction = DEFAULT_FRICTION;
+
+    private int mMode = MODE_NONE;
+    //第一帧的时间就是动画开始的时间
+    private boolean mHasStartTime;
+    private long mStartTime;
+    private float mStartValue;
+    private float mStartVelocity;
+    private float mEndValue;
+    private long mDuration;
+    //这次普通动画使用的插值器
+    private TimeInterpolator mTweenInterpolator;
+    //减速动画的范围
+    private float mMinValue;
+    private float mMaxValue;
+
+    private float mValue;
+    private float mVelocity;
+    private long mLastFrameTime;
+
+    public FoldAnimator(Listener listener) {
+        mListener = listener;
+        mFrameClock = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                ? new ChoreographerFrameClock() : new HandlerFrameClock();
+    }
+
+    /**
+     * 替换驱动每一帧的时钟，例如和其他动画共用同一个时钟，由调用者在每一帧调用{@link #doFrame(long)}
+     * @param clock 一个时钟只服务一个FoldAnimator
+     */
+    public void setFrameClock(FrameClock clock) {
+        if (clock == null) throw new NullPointerException("Frame clock cannot be null");
+        if (isRunning()) mFrameClock.removeFrame(this);
+        mFrameClock = clock;
+        if (isRunning()) mFrameClock.postFrame(this);
+    }
+
+    /**
+     * {@link #animateTo(float, float, long)}使用的插值器，默认是AccelerateDecelerateInterpolator
+     * @param interpolator
+     */
+    public void setInterpolator(TimeInterpolator interpolator) {
+        if (interpolator == null) throw new NullPointerException("Interpolator cannot be null");
+        mInterpolator = interpolator;
+    }
+
+    public TimeInterpolator getInterpolator() {
+        return mInterpolator;
+    }
+
+    /**
+     * {@link #springTo(float, float, float)}使用的弹簧参数
+     * @param stiffness 刚度 越大越快
+     * @param dampingRatio 阻尼比 1为不回弹的最快速度，小于1会回弹
+     */
+    public void setSpring(float stiffness, float dampingRatio) {
+        if (stiffness <= 0 || dampingRatio <= 0) {
+            throw new IllegalArgumentException("Stiffness and damping ratio should be positive");
+        }
+        mStiffness = stiffness;
+        mDampingRatio = dampingRatio;
+    }
+
+    public float getStiffness() {
+        return mStiffness;
+    }
+
+    public float getDampingRatio() {
+        return mDampingRatio;
+    }
+
+    /**
+     * {@link #decay(float, float, float, float)}使用的摩擦系数
+     * @param friction 大于0 越大停得越快
+     */
+    public void setFriction(float friction) {
+        if (friction <= 0) throw new IllegalArgumentException("Friction should be positive");
+        mFriction = friction;
+    }
+
+    public float getFriction() {
+        return mFriction;
+    }
+
+    /**
+     * 以velocity开始按摩擦力减速，最后停在什么位置
+     * @param velocity 每秒变化的值
+     */
+    public float getDecayDistance(float velocity) {
+        return velocity / mFriction;
+    }
+
+    /**
+     * 按时长和插值器从from变化到to
+     * @param duration 毫秒
+     */
+    public void animateTo(float from, float to, long duration) {
+        animateTo(from, to, duration, mInterpolator);
+    }
+
+    /**
+     * 按时长从from变化到to，只有这一次动画使用interpolator，不改变{@link #setInterpolator(TimeInterpolator)}设置的插值器
+     * @param duration 毫秒
+     */
+    public void animateTo(float from, float to, long duration, TimeInterpolator interpolator) {
+        if (interpolator == null) throw new NullPointerException("Interpolator cannot be null");
+        start(MODE_TWEEN, from, to, 0f);
+        mDuration = Math.max(0, duration);
+        mTweenInterpolator = interpolator;
+    }
+
+    /**
+     * 按弹簧从from运动到to，中途改变目标时传入{@link #getVelocity()}可以保持速度连续
+     * @param velocity 开始时每秒变化的值
+     */
+    public void springTo(float from, float to, float velocity) {
+        start(MODE_SPRING, from, to, velocity);
+    }
+
+    /**
+     * 以velocity开始按摩擦力减速，到达min或max时停下
+     * @param velocity 开始时每秒变化的值
+     */
+    public void decay(float from, float velocity, float min, float max) {
+        start(MODE_DECAY, from, from + getDecayDistance(velocity), velocity);
+        mMinValue = min;
+        mMaxValue = max;
+    }
+
+    private void start(int mode, float from, float to, float velocity) {
+        boolean isRunning = isRunning();
+        mMode = mode;
+        mHasStartTime = false;
+        mStartValue = mValue = from;
+        mStartVelocity = mVelocity = velocity;
+        mEndValue = to;
+        if (!isRunning) mFrameClock.postFrame(this);
+    }
+
+    public void cancel() {
+        if (!isRunning()) return;
+        mMode = MODE_NONE;
+        mVelocity = 0;
+        mFrameClock.removeFrame(this);
+    }
+
+    public boolean isRunning() {
+        return mMode != MODE_NONE;
+    }
+
+    /**
+     * 最后一帧的值
+     */
+    public float getValue() {
+        return mValue;
+    }
+
+    /**
+     * 最后一帧的速度 每秒变化的值
+     */
+    public float getVelocity() {
+        return mVelocity;
+    }
+
+    /**
+     * 动画最后会停在哪里
+     */
+    public float getEndValue() {
+        return mEndValue;
+    }
+
+    /**
+     * 每一帧由{@link FrameClock}调用
+     * @param frameTimeNanos 这一帧的时间 纳秒
+     */
+    public void doFrame(long frameTimeNanos) {
+        if (!isRunning()) return;
+
+        if (!mHasStartTime) {
+            mHasStartTime = true;
+            mStartTime = frameTimeNanos;
+            mLastFrameTime = frameTimeNanos;
+        }
+        float time = (frameTimeNanos - mStartTime) / 1000000000f;
+        float frameTime = (frameTimeNanos - mLastFrameTime) / 1000000000f;
+        mLastFrameTime = frameTimeNanos;
+
+        boolean isFinished;
+        switch (mMode) {
+            case MODE_TWEEN:
+                isFinished = updateTween(time, frameTime);
+                break;
+            case MODE_SPRING:
+                isFinished = updateSpring(time);
+                break;
+            default:
+                isFinished = updateDecay(time);
+                break;
+        }
+
+        if (isFinished) {
+            mMode = MODE_NONE;
+            mVelocity = 0;
+        } else {
+            mFrameClock.postFrame(this);
+        }
+
+        mListener.onFoldAnimationUpdate(mValue);
+        if (isFinished && !isRunning()) mListener.onFoldAnimationEnd();
+    }
+
+    private boolean updateTween(float time, float frameTime) {
+        float fraction = mDuration == 0 ? 1f : Math.min(1f, time * 1000f / mDuration);
+        float value = mStartValue + (mEndValue - mStartValue) * mTweenInterpolator.getInterpolation(fraction);
+        mVelocity = frameTime > 0 ? (value - mValue) / frameTime : 0f;
+        mValue = value;
+        return fraction >= 1f;
+    }
+
+    //阻尼振动的解析解，位移是相对目标的距离，质量为1
+    private boolean updateSpring(float time) {
+        float x0 = mStartValue - mEndValue;
+        float v0 = mStartVelocity;
+        double w0 = Math.sqrt(mStiffness);
+        double z = mDampingRatio;
+
+        double x, v;
+        if (z < 1) {
+            double wd = w0 * Math.sqrt(1 - z * z);
+            double b = (v0 + z * w0 * x0) / wd;
+            double e = Math.exp(-z * w0 * time);
+            double cos = Math.cos(wd * time);
+            double sin = Math.sin(wd * time);
+            x = e * (x0 * cos + b * sin);
+            v = e * ((b * wd - z * w0 * x0) * cos - (x0 * wd + z * w0 * b) * sin);
+        } else if (z == 1) {
+            double c = v0 + w0 * x0;
+            double e = Math.exp(-w0 * time);
+            x = (x0 + c * time) * e;
+            v = c * e - w0 * x;
+        } else {
+            double s = w0 * Math.sqrt(z * z - 1);
+            double r1 = -z * w0 + s;
+            double r2 = -z * w0 - s;
+            double a = (v0 - r2 * x0) / (r1 - r2);
+            double b = x0 - a;
+            double e1 = Math.exp(r1 * time);
+            double e2 = Math.exp(r2 * time);
+            x = a * e1 + b * e2;
+            v = a * r1 * e1 + b * r2 * e2;
+        }
+
+        if (Math.abs(x) < VALUE_THRESHOLD && Math.abs(v) < VELOCITY_THRESHOLD) {
+            mValue = mEndValue;
+            return true;
+        }
+        mValue = mEndValue + (float) x;
+        mVelocity = (float) v;
+        return false;
+    }
+
+    private boolean updateDecay(float time) {
+        float e = (float) Math.exp(-mFriction * time);
+        float value = mStartValue + mStartVelocity / mFriction * (1f - e);
+        mVelocity = mStartVelocity * e;
+
+        if (value <= mMinValue || value >= mMaxValue) {
+            mValue = Math.min(Math.max(mMinValue, value), mMaxValue);
+            return true;
+        }
+        mValue = value;
+        return Math.abs(mVelocity) < VELOCITY_THRESHOLD;
+    }
+
+    /**
+     * 动画的回调
+     */
+    public interface Listener {
+        void onFoldAnimationUpdate(float value);
+
+        /**
+         * 动画自然结束，调用{@link #cancel()}或重新开始时不会回调
+         */
+        void onFoldAnimationEnd();
+    }
+
+    /**
+     * 驱动每一帧的时钟
+     */
+    public interface FrameClock {
+        /**
+         * 在下一帧调用animator.doFrame(frameTimeNanos)，时间单调递增
+         */
+        void postFrame(FoldAnimator animator);
+
+        void removeFrame(FoldAnimator animator);
+    }
+
+    //API 16以上和屏幕刷新同步
+    private static class ChoreographerFrameClock implements FrameClock, Choreographer.FrameCallback {
+        private FoldAnimator mAnimator;
+
+        @Override
+        public void postFrame(FoldAnimator animator) {
+            mAnimator = animator;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        public void removeFrame(FoldAnimator animator) {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mAnimator.doFrame(frameTimeNanos);
+        }
+    }
+
+    //API 16以下按固定间隔刷新
+    private static class HandlerFrameClock implements FrameClock, Runnable {
+        private static final long FRAME_DELAY = 16;
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+        private FoldAnimator mAnimator;
+
+        @Override
+        public void postFrame(FoldAnimator animator) {
+            mAnimator = animator;
+            mHandler.postDelayed(this, FRAME_DELAY);
+        }
+
+        @Override
+        public void removeFrame(FoldAnimator animator) {
+            mHandler.removeCallbacks(this);
+        }
+
+        @Override
+        public void run() {
+            mAnimator.doFrame(System.nanoTime());
+        }
+    }
+
+}
@@ -0,0 +1,281 @@
+package com.alexvasilkov.foldablelayout;
+
+import android.annotation.SuppressLint;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * 翻转缓存bitmap的复用池，{@link FoldableItemLayout}在尺寸变化或被回收时会把bitmap还到这里，下次优先从这里取
+ * <p/>
+ * 先按宽、高和Config完全匹配查找，KITKAT以上找不到时会用{@link Bitmap#reconfigure(int, int, Bitmap.Config)}
+ * 复用一块足够大的bitmap。池中bitmap的总字节数不会超过设置的上限，超出时先回收最久没用过的，
+ * 在池中放置超过{@link #setEvictionDelay(long)}的bitmap也会被回收，停止翻转一段时间后内存会降下来
+ */
+@SuppressLint("NewApi")
+public class FoldBitmapPool {
+
+    //reconfigure时允许复用的bitmap最多比实际需要的大多少倍，避免大bitmap被小尺寸长期占用
+    private static final int MAX_RECONFIGURE_SIZE_MULTIPLIER = 2;
+    //默认bitmap在池中最多放置多久(毫秒)
+    public static final long DEFAULT_EVICTION_DELAY = 5000;
+
+    private static FoldBitmapPool sDefaultPool;
+
+    //池中的bitmap 越靠前表示越久没被使用
+    private final LinkedList<Entry> mEntries = new LinkedList<Entry>();
+
+    private long mMaxSize;
+    private long mSize;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private long mEvictionDelay = DEFAULT_EVICTION_DELAY;
+    private boolean mIsEvictionScheduled;
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    /**
+     * 进程内共享的默认池，上限一开始是0，由使用它的{@link FoldableListLayout}按各自窗口的大小通过
+     * {@link #adjustMaxSize(long)}增加，离开窗口时再减掉，所以上限就是当前显示着的列表需要的大小
+     */
+    public static synchronized FoldBitmapPool getDefault() {
+        if (sDefaultPool == null) {
+            sDefaultPool = new FoldBitmapPool(0);
+        }
+        return sDefaultPool;
+    }
+
+    /**
+     * @param maxSize 池中bitmap总字节数的上限
+     */
+    public FoldBitmapPool(long maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("Max size should be >= 0");
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * 获取一块指定尺寸和Config的bitmap，池中没有合适的就新建一块 返回的bitmap内容是清空过的
+     */
+    public Bitmap obtain(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = obtainFromPool(width, height, config);
+        if (bitmap == null) {
+            bitmap = Bitmap.createBitmap(width, height, config);
+        } else {
+            bitmap.eraseColor(0);
+        }
+        return bitmap;
+    }
+
+    private synchronized Bitmap obtainFromPool(int width, int height, Bitmap.Config config) {
+        //先找完全匹配的
+        for (Iterator<Entry> it = mEntries.iterator(); it.hasNext(); ) {
+            Bitmap bitmap = it.next().bitmap;
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                it.remove();
+                mSize -= getBitmapSize(bitmap);
+                mHitCount++;
+                return bitmap;
+            }
+        }
+
+        //再找能reconfigure的 选其中最小的一块
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            long required = (long) width * height * getBytesPerPixel(config);
+            Entry bestEntry = null;
+            for (Entry entry : mEntries) {
+                int allocated = entry.bitmap.getAllocationByteCount();
+                if (allocated >= required && allocated <= required * MAX_RECONFIGURE_SIZE_MULTIPLIER
+                        && (bestEntry == null || allocated < bestEntry.bitmap.getAllocationByteCount())) {
+                    bestEntry = entry;
+                }
+            }
+
+            if (bestEntry != null) {
+                Bitmap best = bestEntry.bitmap;
+                mEntries.remove(bestEntry);
+                mSize -= getBitmapSize(best);
+                best.reconfigure(width, height, config);
+                mHitCount++;
+                return best;
+            }
+        }
+
+        mMissCount++;
+        return null;
+    }
+
+    /**
+     * 把不再使用的bitmap还给池，调用之后不能再使用这个bitmap
+     */
+    public synchronized void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || indexOf(bitmap) >= 0) return;
+
+        long size = getBitmapSize(bitmap);
+        if (!bitmap.isMutable() || size > mMaxSize) {
+            bitmap.recycle();
+            return;
+        }
+
+        mEntries.addLast(new Entry(bitmap, SystemClock.uptimeMillis()));
+        mSize += size;
+        trimToSize(mMaxSize);
+        scheduleEviction();
+    }
+
+    private int indexOf(Bitmap bitmap) {
+        int index = 0;
+        for (Entry entry : mEntries) {
+            if (entry.bitmap == bitmap) return index;
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * 设置bitmap还给池之后最多放置多久，超过时间还没被取走就回收掉
+     * @param delay 单位毫秒，小于等于0表示一直保留(直到超出上限)
+     */
+    public synchronized void setEvictionDelay(long delay) {
+        mEvictionDelay = delay;
+        mHandler.removeCallbacks(mEvictionAction);
+        mIsEvictionScheduled = false;
+        evictExpired();
+    }
+
+    public synchronized long getEvictionDelay() {
+        return mEvictionDelay;
+    }
+
+    //在最早放进来的bitmap到期时检查一次
+    private void scheduleEviction() {
+        if (mIsEvictionScheduled || mEvictionDelay <= 0 || mEntries.isEmpty()) return;
+        mIsEvictionScheduled = true;
+        long delay = mEntries.getFirst().releaseTime + mEvictionDelay - SystemClock.uptimeMillis();
+        mHandler.postDelayed(mEvictionAction, Math.max(0, delay));
+    }
+
+    //回收在池中放置超过mEvictionDelay的bitmap
+    private synchronized void evictExpired() {
+        mIsEvictionScheduled = false;
+        if (mEvictionDelay <= 0) return;
+
+        long now = SystemClock.uptimeMillis();
+        while (!mEntries.isEmpty() && now - mEntries.getFirst().releaseTime >= mEvictionDelay) {
+            Bitmap bitmap = mEntries.removeFirst().bitmap;
+            mSize -= getBitmapSize(bitmap);
+            bitmap.recycle();
+            mEvictionCount++;
+        }
+        scheduleEviction();
+    }
+
+    private final Runnable mEvictionAction = new Runnable() {
+        @Override
+        public void run() {
+            evictExpired();
+        }
+    };
+
+    /**
+     * 重新设置池的上限，超出的部分会被立刻回收
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("Max size should be >= 0");
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * 增加(delta为负数时减少)池的上限，多个使用者共享一个池时各自加上自己需要的大小，不再使用时减掉
+     * @param delta 字节数
+     */
+    public synchronized void adjustMaxSize(long delta) {
+        mMaxSize = Math.max(0, mMaxSize + delta);
+        trimToSize(mMaxSize);
+    }
+
+    public synchronized long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * 当前池中所有bitmap占用的字节数
+     */
+    public synchronized long getSize() {
+        return mSize;
+    }
+
+    /**
+     * 回收池中最久没使用的bitmap，直到总字节数不超过maxSize
+     */
+    public synchronized void trimToSize(long maxSize) {
+        while (mSize > maxSize && !mEntries.isEmpty()) {
+            Bitmap bitmap = mEntries.removeFirst().bitmap;
+            mSize -= getBitmapSize(bitmap);
+            bitmap.recycle();
+            mEvictionCount++;
+        }
+    }
+
+    /**
+     * 回收池中所有的bitmap
+     */
+    public void clear() {
+        trimToSize(0);
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    public synchronized void resetStats() {
+        mHitCount = mMissCount = mEvictionCount = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FoldBitmapPool[size=" + mSize + ", maxSize=" + mMaxSize + ", hits=" + mHitCount
+                + ", misses=" + mMissCount + ", evictions=" + mEvictionCount + "]";
+    }
+
+    static long getBitmapSize(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        } else {
+            return (long) bitmap.getRowBytes() * bitmap.getHeight();
+        }
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ALPHA_8) return 1;
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) return 2;
+        return 4;
+    }
+
+    //池中的一块bitmap和它被还回来的时间
+    private static class Entry {
+        private final Bitmap bitmap;
+        private final long releaseTime;
+
+        private Entry(Bitmap bitmap, long releaseTime) {
+            this.bitmap = bitmap;
+            this.releaseTime = releaseTime;
+        }
+    }
+
+}
@@ -0,0 +1,257 @@
+package com.alexvasilkov.foldablelayout;
+
+/**
+ * 翻转过程中每一帧用到的几何计算：翻转角度的规整和上下二部分的可见性、上下二部分的裁剪范围、
+ * 翻转缓存条带的映射以及自动缩放比例
+ * <p/>
+ * 只依赖java本身，不依赖android。所有计算都不分配对象，
+ * 结果写到调用者提供的{@link PartRotation}、{@link Bounds}和{@link FloatBounds}里
+ */
+public class FoldGeometry {
+
+    //正弦表的精度 每度分成多少份
+    private static final int SINE_TABLE_STEPS_PER_DEGREE = 4;
+
+    //为true时用查表代替Math.sin
+    private final boolean mIsSineTableEnabled;
+
+    public FoldGeometry() {
+        this(false);
+    }
+
+    /**
+     * @param isSineTableEnabled 是否用预先计算的正弦表代替Math.sin，和Math.sin相比最大误差约2.4e-6(不超过2.5e-6)
+     */
+    public FoldGeometry(boolean isSineTableEnabled) {
+        mIsSineTableEnabled = isSineTableEnabled;
+    }
+
+    public boolean isSineTableEnabled() {
+        return mIsSineTableEnabled;
+    }
+
+    /**
+     * 把任意角度规整到(-180,180]
+     */
+    public static float normalizeRotation(float rotation) {
+        float position = rotation;
+        while (position < 0) position += 360;
+        position %= 360;
+        if (position > 180) position -= 360;
+        return position;
+    }
+
+    /**
+     * 计算上半部分或下半部分在某个翻转角度下的rotationX和可见性
+     * 基本思路是：做翻转的部分设置rotationX，其背面的部分隐藏，其他部分保持不变
+     * @param rotation 翻转角度 任意值
+     * @param isTop 是否是上半部分
+     * @param out 结果
+     */
+    public static void computePartRotation(float rotation, boolean isTop, PartRotation out) {
+        float position = normalizeRotation(rotation);
+
+        float rotationX = 0;
+        boolean isVisible = true;
+
+        if (isTop) {
+            if (position <= -90 || position == 180) { // (-180; -90] || {180} - will not show
+                isVisible = false;
+            } else if (position < 0) { // (-90; 0) - applying rotation
+                rotationX = position;
+            }
+            // [0; 180) - holding still
+        } else {
+            if (position >= 90) { // [90; 180] - will not show
+                isVisible = false;
+            } else if (position > 0) { // (0; 90) - applying rotation
+                rotationX = position;
+            }
+            // else: (-180; 0] - holding still
+        }
+
+        out.localRotation = position;
+        out.rotationX = rotationX;
+        out.isVisible = isVisible;
+    }
+
+    /**
+     * 计算中间折叠线位移distance后的裁剪比例，默认即没有位移时是0.5
+     * @param distance 位移
+     * @param halfHeight 半个view的高度
+     * @param isTop 是否是上半部分
+     */
+    public static float computeClippingFactor(float distance, int halfHeight, boolean isTop) {
+        // computing clipping for top view (bottom clipping will be 1 - topClipping)
+        float topClipping = halfHeight == 0 ? 0.5f : (halfHeight - distance) / halfHeight / 2;
+        return isTop ? topClipping : 1f - topClipping;
+    }
+
+    /**
+     * 计算上半部分或下半部分需要绘制的范围
+     * @param isTop 是否是上半部分
+     * @param width view的宽
+     * @param height view的高
+     * @param clippingFactor 参考{@link #computeClippingFactor(float, int, boolean)}
+     * @param visibleBounds view中需要显示的范围 为null表示整个view
+     * @param out 结果 和visibleBounds没有交集时为空
+     */
+    public static void computePartBounds(boolean isTop, int width, int height, float clippingFactor,
+                                         Bounds visibleBounds, Bounds out) {
+        //h * (1 - clippingFactor)和h * clippingFactor看上去不一样，
+        //实际上是一回事，可以根据计算clippingFactor值的方法推导出来
+        int top = isTop ? 0 : (int) (height * (1 - clippingFactor) - 0.5f);
+        int bottom = isTop ? (int) (height * clippingFactor + 0.5f) : height;
+
+        out.set(0, top, width, bottom);
+        if (visibleBounds != null && !out.intersect(visibleBounds)) {
+            out.setEmpty(); // no intersection
+        }
+    }
+
+    /**
+     * 把需要绘制的范围换算到一块缓存条带bitmap上，相邻条带的边界换算回来是同一个位置，这样条带之间不会有缝隙
+     * @param partBounds 需要绘制的范围，参考{@link #computePartBounds(boolean, int, int, float, Bounds, Bounds)}
+     * @param cacheLeft 翻转缓存在view中的左边界
+     * @param cacheTop 翻转缓存在view中的上边界
+     * @param scaleX 缓存相对view的缩放比例
+     * @param scaleY 缓存相对view的缩放比例
+     * @param tileTop 条带在缩放后的缓存中的起始行
+     * @param tileBottom 条带在缩放后的缓存中的结束行
+     * @param outSrc 条带bitmap上的范围
+     * @param outDst 绘制到view上的位置
+     * @return 和这块条带没有交集时返回false，这时outSrc为空，outDst不变
+     */
+    public static boolean computeTileBounds(Bounds partBounds, int cacheLeft, int cacheTop,
+                                            float scaleX, float scaleY, int tileTop, int tileBottom,
+                                            Bounds outSrc, FloatBounds outDst) {
+        int left = (int) ((partBounds.left - cacheLeft) * scaleX + 0.5f);
+        int right = (int) ((partBounds.right - cacheLeft) * scaleX + 0.5f);
+        int top = (int) ((partBounds.top - cacheTop) * scaleY + 0.5f);
+        int bottom = (int) ((partBounds.bottom - cacheTop) * scaleY + 0.5f);
+        top = Math.max(top, tileTop);
+        bottom = Math.min(bottom, tileBottom);
+
+        if (partBounds.isEmpty() || top >= bottom) {
+            outSrc.setEmpty();
+            return false;
+        }
+
+        outSrc.set(left, top - tileTop, right, bottom - tileTop);
+        outDst.set(partBounds.left, cacheTop + top / scaleY, partBounds.right, cacheTop + bottom / scaleY);
+        return true;
+    }
+
+    /**
+     * 计算翻转时为了不超出原来宽度需要的缩放比例
+     * @param rotation 翻转角度
+     * @param width view的宽
+     * @param height view的高
+     * @param depthFactor 和camera distance相关的系数
+     */
+    public float computeAutoScale(float rotation, int width, int height, float depthFactor) {
+        if (width <= 0) return 1f;
+        float dW = height * Math.abs(sin(rotation)) * depthFactor;
+        return width / (width + dW);
+    }
+
+    /**
+     * 角度的正弦值
+     * @param degrees 角度 任意值
+     */
+    public float sin(float degrees) {
+        if (!mIsSineTableEnabled) return (float) Math.sin(Math.toRadians(degrees));
+
+        float d = degrees % 360;
+        if (d < 0) d += 360;
+
+        if (d <= 90) return SineTable.sin(d);
+        if (d <= 180) return SineTable.sin(180 - d);
+        if (d <= 270) return -SineTable.sin(d - 180);
+        return -SineTable.sin(360 - d);
+    }
+
+    /**
+     * [0,90]度的正弦表，第一次用到时才创建
+     */
+    private static class SineTable {
+
+        private static final float[] TABLE = new float[90 * SINE_TABLE_STEPS_PER_DEGREE + 2];
+
+        static {
+            for (int i = 0; i < TABLE.length; i++) {
+                TABLE[i] = (float) Math.sin(Math.toRadians((double) i / SINE_TABLE_STEPS_PER_DEGREE));
+            }
+        }
+
+        //degrees取值范围[0,90] 二个表项之间线性插值
+        private static float sin(float degrees) {
+            float index = degrees * SINE_TABLE_STEPS_PER_DEGREE;
+            int i = (int) index;
+            float fraction = index - i;
+            return TABLE[i] + (TABLE[i + 1] - TABLE[i]) * fraction;
+        }
+
+    }
+
+    /**
+     * 上半部分或下半部分的翻转状态
+     */
+    public static class PartRotation {
+        //规整到(-180,180]的翻转角度
+        public float localRotation;
+        public float rotationX;
+        public boolean isVisible;
+    }
+
+    /**
+     * 整数的矩形范围，和android.graphics.Rect一样左上包含、右下不包含
+     */
+    public static class Bounds {
+        public int left, top, right, bottom;
+
+        public void set(int left, int top, int right, int bottom) {
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        public void setEmpty() {
+            left = top = right = bottom = 0;
+        }
+
+        public boolean isEmpty() {
+            return left >= right || top >= bottom;
+        }
+
+        /**
+         * 和other求交集，没有交集时返回false且自身不变
+         */
+        public boolean intersect(Bounds other) {
+            if (left < other.right && other.left < right && top < other.bottom && other.top < bottom) {
+                if (left < other.left) left = other.left;
+                if (top < other.top) top = other.top;
+                if (right > other.right) right = other.right;
+                if (bottom > other.bottom) bottom = other.bottom;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 浮点数的矩形范围
+     */
+    public static class FloatBounds {
+        public float left, top, right, bottom;
+
+        public void set(float left, float top, float right, float bottom) {
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+    }
+
+}
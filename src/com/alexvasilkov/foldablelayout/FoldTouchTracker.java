@@ -0,0 +1,138 @@
+package com.alexvasilkov.foldablelayout;
+
+import android.view.MotionEvent;
+
+/**
+ * 只跟踪翻转方向(Y轴)的拖动距离和速度，代替GestureDetector和VelocityTracker，处理事件时不分配任何对象
+ * <p/>
+ * 所有Y值都会加上调用者传入的offsetY，用来抵消view自身在Y轴上的位移
+ */
+class FoldTouchTracker {
+
+    //保存最近多少个采样点
+    private static final int MAX_SAMPLES = 16;
+    //计算速度时只使用最近多长时间(毫秒)内的采样点
+    private static final long VELOCITY_WINDOW = 100;
+
+    private static final int INVALID_POINTER = -1;
+
+    //最近的采样点 环形保存
+    private final float[] mSampleY = new float[MAX_SAMPLES];
+    private final long[] mSampleTime = new long[MAX_SAMPLES];
+    private int mSampleIndex;
+    private int mSampleCount;
+
+    //当前跟踪的手指
+    private int mActivePointerId = INVALID_POINTER;
+    //按下时的Y值，换手指时会调整，保证拖动距离是连续的
+    private float mDownY;
+
+    /**
+     * 按下时调用，开始跟踪第一个手指
+     */
+    void onDown(MotionEvent event, float offsetY) {
+        mActivePointerId = event.getPointerId(0);
+        mSampleCount = 0;
+        mDownY = event.getY(0) + offsetY;
+        addSample(mDownY, event.getEventTime());
+    }
+
+    /**
+     * 移动或抬起时调用，记录这个事件中所有的历史采样点
+     * @return 当前跟踪的手指不在这个事件中时返回false
+     */
+    boolean onMove(MotionEvent event, float offsetY) {
+        int index = event.findPointerIndex(mActivePointerId);
+        if (index < 0) return false;
+
+        int historySize = event.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            addSample(event.getHistoricalY(index, h) + offsetY, event.getHistoricalEventTime(h));
+        }
+        addSample(event.getY(index) + offsetY, event.getEventTime());
+        return true;
+    }
+
+    /**
+     * 有手指抬起时调用，当前跟踪的手指抬起了就换成另一个手指继续跟踪
+     */
+    void onPointerUp(MotionEvent event, float offsetY) {
+        int actionIndex = event.getActionIndex();
+        if (event.getPointerId(actionIndex) != mActivePointerId) return;
+
+        int newIndex = actionIndex == 0 ? 1 : 0;
+        float newY = event.getY(newIndex) + offsetY;
+        //保持拖动距离不变，换手指时不会跳动
+        mDownY += newY - getLastY();
+        mActivePointerId = event.getPointerId(newIndex);
+
+        mSampleCount = 0;
+        addSample(newY, event.getEventTime());
+    }
+
+    /**
+     * 从按下到现在的拖动距离，向上滑动是正数 向下滑动是负数
+     */
+    float getDistance() {
+        return mDownY - getLastY();
+    }
+
+    float getLastY() {
+        return mSampleCount == 0 ? mDownY : mSampleY[mSampleIndex];
+    }
+
+    long getLastTime() {
+        return mSampleCount == 0 ? 0 : mSampleTime[mSampleIndex];
+    }
+
+    /**
+     * 某个时间点的拖动距离，在相邻的二个采样点之间线性插值，晚于最后一个采样点时返回最后的距离
+     * @param time 和{@link MotionEvent#getEventTime()}一样的时间基准
+     * @return 早于保存的所有采样点时返回Float.NaN
+     */
+    float getDistanceAt(long time) {
+        if (mSampleCount == 0) return Float.NaN;
+        if (time >= mSampleTime[mSampleIndex]) return getDistance();
+
+        int newer = mSampleIndex;
+        for (int i = 1; i < mSampleCount; i++) {
+            int older = (mSampleIndex - i + MAX_SAMPLES) % MAX_SAMPLES;
+            if (time >= mSampleTime[older]) {
+                long duration = mSampleTime[newer] - mSampleTime[older];
+                float fraction = duration <= 0 ? 1f : (float) (time - mSampleTime[older]) / duration;
+                return mDownY - (mSampleY[older] + (mSampleY[newer] - mSampleY[older]) * fraction);
+            }
+            newer = older;
+        }
+        return Float.NaN;
+    }
+
+    /**
+     * 最近{@link #VELOCITY_WINDOW}毫秒内的平均速度，单位 像素/秒，向下滑动是正数
+     */
+    float getVelocity() {
+        if (mSampleCount < 2) return 0;
+
+        float lastY = mSampleY[mSampleIndex];
+        long lastTime = mSampleTime[mSampleIndex];
+
+        //找到时间窗口内最早的采样点
+        int oldest = mSampleIndex;
+        for (int i = 1; i < mSampleCount; i++) {
+            int index = (mSampleIndex - i + MAX_SAMPLES) % MAX_SAMPLES;
+            if (lastTime - mSampleTime[index] > VELOCITY_WINDOW) break;
+            oldest = index;
+        }
+
+        long duration = lastTime - mSampleTime[oldest];
+        return duration <= 0 ? 0 : (lastY - mSampleY[oldest]) * 1000f / duration;
+    }
+
+    private void addSample(float y, long time) {
+        mSampleIndex = mSampleCount == 0 ? 0 : (mSampleIndex + 1) % MAX_SAMPLES;
+        mSampleY[mSampleIndex] = y;
+        mSampleTime[mSampleIndex] = time;
+        if (mSampleCount < MAX_SAMPLES) mSampleCount++;
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.alexvasilkov.foldablelayout;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+import java.util.ArrayList;
+
+/**
+ * 支持局部更新通知的适配器：和{@link FoldableListLayout}一起使用时，某一页变化只会重新绑定这一页，
+ * 前面的页插入或删除时当前显示的页也保持不变
+ * <p/>
+ * 这些通知只会发给{@link ItemObserver}，同一个adapter还给其他只注册了DataSetObserver的view使用时，
+ * 仍需要调用{@link #notifyDataSetChanged()}
+ */
+public abstract class FoldableAdapter extends BaseAdapter {
+
+    private final ArrayList<ItemObserver> mItemObservers = new ArrayList<ItemObserver>();
+
+    public void registerItemObserver(ItemObserver observer) {
+        if (observer == null) throw new NullPointerException("Observer cannot be null");
+        if (!mItemObservers.contains(observer)) mItemObservers.add(observer);
+    }
+
+    public void unregisterItemObserver(ItemObserver observer) {
+        mItemObservers.remove(observer);
+    }
+
+    /**
+     * position这一页的数据变了
+     * @param position
+     */
+    public void notifyItemChanged(int position) {
+        notifyItemRangeChanged(position, 1);
+    }
+
+    /**
+     * 从positionStart开始的itemCount页的数据变了
+     * @param positionStart
+     * @param itemCount
+     */
+    public void notifyItemRangeChanged(int positionStart, int itemCount) {
+        for (int i = mItemObservers.size() - 1; i >= 0; i--) {
+            mItemObservers.get(i).onItemRangeChanged(positionStart, itemCount);
+        }
+    }
+
+    /**
+     * 在position插入了一页
+     * @param position
+     */
+    public void notifyItemInserted(int position) {
+        notifyItemRangeInserted(position, 1);
+    }
+
+    /**
+     * 从positionStart开始插入了itemCount页，getCount()已经是插入之后的数量
+     * @param positionStart
+     * @param itemCount
+     */
+    public void notifyItemRangeInserted(int positionStart, int itemCount) {
+        for (int i = mItemObservers.size() - 1; i >= 0; i--) {
+            mItemObservers.get(i).onItemRangeInserted(positionStart, itemCount);
+        }
+    }
+
+    /**
+     * 删除了原来在position的一页
+     * @param position
+     */
+    public void notifyItemRemoved(int position) {
+        notifyItemRangeRemoved(position, 1);
+    }
+
+    /**
+     * 删除了原来从positionStart开始的itemCount页，getCount()已经是删除之后的数量
+     * @param positionStart
+     * @param itemCount
+     */
+    public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        for (int i = mItemObservers.size() - 1; i >= 0; i--) {
+            mItemObservers.get(i).onItemRangeRemoved(positionStart, itemCount);
+        }
+    }
+
+    /**
+     * 原来在fromPosition的一页移到了toPosition
+     * @param fromPosition
+     * @param toPosition
+     */
+    public void notifyItemMoved(int fromPosition, int toPosition) {
+        for (int i = mItemObservers.size() - 1; i >= 0; i--) {
+            mItemObservers.get(i).onItemMoved(fromPosition, toPosition);
+        }
+    }
+
+    /**
+     * 快速翻过多页时代替完整绑定的轻量占位页，所有position共用一种view类型
+     * <p/>
+     * 默认返回null，这时快速翻过的页显示为空白页
+     * @param position
+     * @param convertView 可以复用的占位页
+     * @param parent
+     */
+    public View getPlaceholderView(int position, View convertView, ViewGroup parent) {
+        return null;
+    }
+
+    /**
+     * 局部更新通知的回调
+     */
+    public interface ItemObserver {
+        void onItemRangeChanged(int positionStart, int itemCount);
+
+        void onItemRangeInserted(int positionStart, int itemCount);
+
+        void onItemRangeRemoved(int positionStart, int itemCount);
+
+        void onItemMoved(int fromPosition, int toPosition);
+    }
+
+}
@@ -3,16 +3,18 @@ package com.alexvasilkov.foldablelayout;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.graphics.*;
+import android.os.Build;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.widget.FrameLayout;
 import com.alexvasilkov.foldablelayout.shading.FoldShading;
 
 /**
- * {@link FoldableListLayout}child view
+ * {@link FoldableListLayout}的child view
  */
 @SuppressLint("NewApi")
 public class FoldableItemLayout extends FrameLayout {
@@ -20,27 +22,58 @@ public class FoldableItemLayout extends FrameLayout {
     private static final int CAMERA_DISTANCE = 48;
     private static final float CAMERA_DISTANCE_MAGIC_FACTOR = 8f / CAMERA_DISTANCE;
 
-    //ǷҪԶScale
+    //停止翻转后默认多久释放翻转缓存
+    static final long DEFAULT_CACHE_RELEASE_DELAY = 1000;
+    //每块缓存条带bitmap默认的最大高度 不超过绝大部分设备支持的最大纹理尺寸
+    private static final int DEFAULT_MAX_CACHE_TILE_HEIGHT = 2048;
+
+    //是否需要开启自动Scale
     private boolean mIsAutoScaleEnabled;
+    //翻转过程中的几何计算
+    private FoldGeometry mGeometry = new FoldGeometry();
 
-    //ԿFoldableItemLayoutΨһchild viewȥеviews,תУṩһmCacheCanvasȥת
+    //可以看做是FoldableItemLayout的唯一child view，它会去管理所有的views,翻转过程中，它会提供翻转缓存去做翻转处理
     private BaseLayout mBaseLayout;
-    //תҪviewг¶
+    //因翻转需要，会把整个view切成上下二部分来处理
     private PartView mTopPart, mBottomPart;
 
-    //ǰview  
+    //当前view 宽 高
     private int mWidth, mHeight;
-    //viewɵbitmapҪתʱв
-    private Bitmap mCacheBitmap;
-
-    //true ʾǰڷת
+    //保存整个view生成的翻转缓存，主要作用是在做翻转时，会对其进行操作
+    //缓存按水平条带切分成多块bitmap，这样再高的view也不会超过最大纹理尺寸 为null表示还没有创建缓存
+    private CacheTile[] mCacheTiles;
+    //每块条带bitmap的最大高度
+    private int mMaxCacheTileHeight = DEFAULT_MAX_CACHE_TILE_HEIGHT;
+    //翻转缓存的内容是否完全不透明 不透明时不需要先清空缓存，也不需要alpha通道
+    private boolean mIsCacheOpaque;
+    //内容不透明时是否允许使用RGB_565的缓存，内存只有ARGB_8888的一半
+    private boolean mIsRgb565CacheEnabled = true;
+    //当前view中需要显示的范围 为null表示整个view
+    private Rect mVisibleBounds;
+    //翻转缓存对应当前view中的范围 只需要缓存可见范围内的内容
+    private final Rect mCacheBounds = new Rect();
+    //翻转时真正需要用到的范围，不和这个范围相交的条带不需要分配bitmap，范围外的内容也不会重新绘制到缓存上
+    private final Rect mNeededBounds = new Rect();
+    //上一次需要用到的范围，范围变大时新加入的部分可能是过期的内容
+    private final Rect mLastNeededBounds = new Rect();
+    private final Rect mTmpBounds = new Rect();
+    //翻转缓存相对当前view尺寸的缩放比例 取值范围(0,1]，值越小越省内存，但翻转时画面越模糊
+    private float mRenderScale = 1f;
+    //翻转缓存bitmap从这里获取，不再使用时也还给它
+    private FoldBitmapPool mBitmapPool = FoldBitmapPool.getDefault();
+    //停止翻转后多久释放翻转缓存 小于0表示不释放
+    private long mCacheReleaseDelay = DEFAULT_CACHE_RELEASE_DELAY;
+
+    //若true 表示当前处于翻转过程
     private boolean mIsInTransformation;
+    //翻转过程中直接使用已有缓存，没有重新绘制翻转缓存的帧数
+    private int mSnapshotFrameCount;
 
-    //¼ǰתĽǶ ֵǱ180ģ ֵΧ(-180,180)
+    //记录当前翻转的角度 这个值是被180模过的 所有值范围在(-180,180)
     private float mFoldRotation;
-    //¼ǰviewѹıֵ
+    //记录当前view压缩的比值
     private float mScale;
-    //mScaleһʹ
+    //配合mScale一起使用
     private float mRollingDistance;
 
     public FoldableItemLayout(Context context) {
@@ -59,21 +92,21 @@ public class FoldableItemLayout extends FrameLayout {
     }
 
     private void init(Context context) {
-    	//Ϸת Ҫṩһ黭
+    	//配合翻转用 主要是提供一块画布
         mBaseLayout = new BaseLayout(this);
 
-        //תõĶview
+        //做翻转用的二个view
         mTopPart = new PartView(this, Gravity.TOP);
         mBottomPart = new PartView(this, Gravity.BOTTOM);
         
-        //ʼǰ״̬ǷǷת
+        //初始化当前状态是非翻转
         setInTransformation(false);
     }
 
     @Override
     protected void onFinishInflate() {
         super.onFinishInflate();
-        //mBaseLayoutҪȫǵFoldableItemLayoutmBaseLayoutҪӹܳFoldableItemLayout3child view
+        //mBaseLayout要完全覆盖掉FoldableItemLayout，所有mBaseLayout要接管除FoldableItemLayout定义的3个child view
         mBaseLayout.moveInflatedChildren(this, 3); // skipping mBaseLayout & mTopPart & mBottomPart views
     }
 
@@ -84,49 +117,390 @@ public class FoldableItemLayout extends FrameLayout {
         mWidth = w;
         mHeight = h;
 
-        if (mCacheBitmap != null) {
-            mCacheBitmap.recycle();
-            mCacheBitmap = null;
+        createCache();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mCacheTiles == null) createCache();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        //不显示的时候把bitmap还给复用池，给其他界面使用
+        removeCallbacks(mReleaseCacheAction);
+        releaseCache();
+    }
+
+    /**
+     * 根据当前view的宽高和mRenderScale重新创建翻转缓存
+     * 只有在翻转过程中才会真正创建，没有翻转的view不需要占用这块内存
+     */
+    private void createCache() {
+        releaseCache();
+
+        computeCacheBounds(mCacheBounds);
+        mIsCacheOpaque = isContentOpaque();
+
+        if (mIsInTransformation && !mCacheBounds.isEmpty()) {
+            //缓存和可见范围一样大，再按mRenderScale缩放
+            int cacheWidth = Math.max(1, (int) (mCacheBounds.width() * mRenderScale + 0.5f));
+            int cacheHeight = Math.max(1, (int) (mCacheBounds.height() * mRenderScale + 0.5f));
+            float scaleX = (float) cacheWidth / mCacheBounds.width();
+            float scaleY = (float) cacheHeight / mCacheBounds.height();
+
+            //按mMaxCacheTileHeight切分成多个水平条带，条带的bitmap等到真正需要时才分配
+            int count = (cacheHeight + mMaxCacheTileHeight - 1) / mMaxCacheTileHeight;
+            mCacheTiles = new CacheTile[count];
+            for (int i = 0; i < count; i++) {
+                CacheTile tile = new CacheTile();
+                tile.width = cacheWidth;
+                tile.scaledTop = i * mMaxCacheTileHeight;
+                tile.scaledBottom = Math.min(cacheHeight, tile.scaledTop + mMaxCacheTileHeight);
+                int top = mCacheBounds.top + (int) (tile.scaledTop / scaleY);
+                int bottom = mCacheBounds.top + (int) Math.ceil(tile.scaledBottom / scaleY);
+                tile.bounds.set(mCacheBounds.left, top, mCacheBounds.right, Math.min(bottom, mCacheBounds.bottom));
+                tile.scaleX = scaleX;
+                tile.scaleY = scaleY;
+                mCacheTiles[i] = tile;
+            }
+        }
+
+        mBaseLayout.onCacheChanged();
+        mLastNeededBounds.setEmpty();
+
+        //mTopPart和mBottomPart这二个view绘制翻转缓存，会有一些变换和裁剪
+        mTopPart.setCacheTiles(mCacheTiles, mWidth, mHeight, mCacheBounds);
+        mBottomPart.setCacheTiles(mCacheTiles, mWidth, mHeight, mCacheBounds);
+
+        updateCacheTiles(false);
+    }
+
+    /**
+     * 根据当前在屏幕上需要显示的范围，给需要的条带分配bitmap，把不需要的条带bitmap还给复用池
+     * @param isInvalidate 若true 新分配的条带会通知mBaseLayout重新绘制
+     */
+    private void updateCacheTiles(boolean isInvalidate) {
+        if (mCacheTiles == null) return;
+
+        //当前view在屏幕上能看到的范围
+        if (!getLocalVisibleRect(mTmpBounds)) mTmpBounds.setEmpty();
+
+        mNeededBounds.setEmpty();
+        mTopPart.collectNeededBounds(mTmpBounds, mNeededBounds);
+        mBottomPart.collectNeededBounds(mTmpBounds, mNeededBounds);
+
+        //被挡住的部分不会重新绘制到缓存上，重新露出来时需要重新绘制
+        if (!mNeededBounds.isEmpty() && !mLastNeededBounds.contains(mNeededBounds)) {
+            if (isInvalidate) {
+                mBaseLayout.invalidate(mNeededBounds);
+            } else {
+                mBaseLayout.markDirty(mNeededBounds.left, mNeededBounds.top, mNeededBounds.right, mNeededBounds.bottom);
+            }
+        }
+        mLastNeededBounds.set(mNeededBounds);
+
+        for (CacheTile tile : mCacheTiles) {
+            if (Rect.intersects(tile.bounds, mNeededBounds)) {
+                if (tile.bitmap == null) {
+                    tile.allocate(mBitmapPool, mCacheBounds, getCacheConfig(), mIsCacheOpaque);
+                    if (isInvalidate) mBaseLayout.invalidate(tile.bounds);
+                }
+            } else if (tile.bitmap != null) {
+                //不在屏幕内的条带直接跳过，不占用内存
+                tile.release(mBitmapPool);
+            }
+        }
+    }
+
+    private Bitmap.Config getCacheConfig() {
+        return mIsCacheOpaque && mIsRgb565CacheEnabled ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+    }
+
+    /**
+     * 判断需要缓存的范围内的内容是否完全不透明，一般是BaseLayout(从FoldableItemLayout继承过来)或者child view有不透明的背景
+     */
+    private boolean isContentOpaque() {
+        return !mCacheBounds.isEmpty() && isOpaqueOver(mBaseLayout,
+                mCacheBounds.left, mCacheBounds.top, mCacheBounds.right, mCacheBounds.bottom);
+    }
+
+    /**
+     * 判断view或者它的某个child view是否完全不透明地覆盖了指定的范围
+     * @param view
+     * @param l 范围在view坐标系中的位置
+     */
+    private static boolean isOpaqueOver(View view, int l, int t, int r, int b) {
+        if (view.getVisibility() != VISIBLE) return false;
+        if (view.isOpaque() && l >= 0 && t >= 0 && r <= view.getWidth() && b <= view.getHeight()) return true;
+
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = group.getChildCount() - 1; i >= 0; i--) {
+                View child = group.getChildAt(i);
+                if (!child.getMatrix().isIdentity()) continue; // 有变换的child view不好判断，直接跳过
+
+                int dx = group.getScrollX() - child.getLeft();
+                int dy = group.getScrollY() - child.getTop();
+                if (isOpaqueOver(child, l + dx, t + dy, r + dx, b + dy)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 没有在翻转时，内容是否完全不透明地覆盖了整个view，这时它后面的view完全被挡住了
+     */
+    boolean isOpaqueWhenFlat() {
+        return !mIsInTransformation && mWidth > 0 && mHeight > 0 && getAlpha() == 1f
+                && isOpaqueOver(mBaseLayout, 0, 0, mWidth, mHeight);
+    }
+
+    /**
+     * 检查内容的透明性是否发生了变化，变化了需要重新创建翻转缓存
+     */
+    private void checkCacheOpaque() {
+        if (mCacheTiles != null && mIsCacheOpaque != isContentOpaque()) createCache();
+    }
+
+    /**
+     * 设置内容不透明时是否允许使用RGB_565的翻转缓存，只占用ARGB_8888一半的内存，默认开启
+     * @param isEnabled
+     */
+    public void setRgb565CacheEnabled(boolean isEnabled) {
+        if (mIsRgb565CacheEnabled == isEnabled) return;
+        mIsRgb565CacheEnabled = isEnabled;
+
+        if (mCacheTiles != null && mIsCacheOpaque) createCache();
+    }
+
+    public boolean isRgb565CacheEnabled() {
+        return mIsRgb565CacheEnabled;
+    }
+
+    /**
+     * 计算需要缓存的范围，即当前view和mVisibleBounds的交集
+     */
+    private void computeCacheBounds(Rect out) {
+        out.set(0, 0, mWidth, mHeight);
+        if (mVisibleBounds != null && !out.intersect(mVisibleBounds)) out.setEmpty();
+    }
+
+    /**
+     * 把翻转缓存的bitmap都还给mBitmapPool
+     */
+    private void releaseCache() {
+        if (mCacheTiles != null) {
+            CacheTile[] tiles = mCacheTiles;
+            mCacheTiles = null;
+
+            mBaseLayout.onCacheChanged();
+            mTopPart.setCacheTiles(null, mWidth, mHeight, mCacheBounds);
+            mBottomPart.setCacheTiles(null, mWidth, mHeight, mCacheBounds);
+
+            for (CacheTile tile : tiles) {
+                tile.release(mBitmapPool);
+            }
+        }
+    }
+
+    /**
+     * 设置获取翻转缓存bitmap用的复用池，默认是{@link FoldBitmapPool#getDefault()}，
+     * 默认池的上限由显示着的FoldableListLayout决定，单独使用时需要复用bitmap请设置自己的池
+     * @param pool
+     */
+    public void setBitmapPool(FoldBitmapPool pool) {
+        if (pool == null) throw new NullPointerException("Bitmap pool cannot be null");
+        if (mBitmapPool == pool) return;
+
+        releaseCache();
+        mBitmapPool = pool;
+        createCache();
+    }
+
+    public FoldBitmapPool getBitmapPool() {
+        return mBitmapPool;
+    }
+
+    /**
+     * 设置停止翻转后多久把翻转缓存还给复用池
+     * @param delay 单位毫秒，0表示停止翻转后立刻释放，小于0表示一直保留
+     */
+    public void setCacheReleaseDelay(long delay) {
+        mCacheReleaseDelay = delay;
+        if (!mIsInTransformation) scheduleCacheRelease();
+    }
+
+    public long getCacheReleaseDelay() {
+        return mCacheReleaseDelay;
+    }
+
+    /**
+     * 根据mCacheReleaseDelay安排释放翻转缓存
+     */
+    private void scheduleCacheRelease() {
+        removeCallbacks(mReleaseCacheAction);
+        if (mCacheTiles == null || mCacheReleaseDelay < 0) return;
+
+        if (mCacheReleaseDelay == 0) {
+            releaseCache();
+        } else {
+            postDelayed(mReleaseCacheAction, mCacheReleaseDelay);
+        }
+    }
+
+    //停止翻转一段时间后释放翻转缓存
+    private final Runnable mReleaseCacheAction = new Runnable() {
+        @Override
+        public void run() {
+            if (!mIsInTransformation) releaseCache();
+        }
+    };
+
+    /**
+     * 设置翻转缓存每块水平条带bitmap的最大高度，比这更高的view会被切分成多块bitmap缓存，
+     * 翻转时只绘制和分配屏幕上看得到的条带
+     * @param maxHeight 单位像素，应不超过设备支持的最大纹理尺寸
+     */
+    public void setMaxCacheTileHeight(int maxHeight) {
+        if (maxHeight <= 0) throw new IllegalArgumentException("Max tile height should be > 0");
+        if (mMaxCacheTileHeight == maxHeight) return;
+        mMaxCacheTileHeight = maxHeight;
+
+        if (mCacheTiles != null) createCache();
+    }
+
+    public int getMaxCacheTileHeight() {
+        return mMaxCacheTileHeight;
+    }
+
+    /**
+     * 设置翻转时翻转缓存相对当前view尺寸的缩放比例，如0.5f表示只用四分之一的内存，绘制时再放大回原尺寸
+     * @param renderScale 取值范围(0,1]
+     */
+    public void setRenderScale(float renderScale) {
+        if (renderScale <= 0 || renderScale > 1) {
+            throw new IllegalArgumentException("Render scale should be within (0, 1]");
+        }
+        if (mRenderScale == renderScale) return;
+        mRenderScale = renderScale;
+
+        createCache();
+    }
+
+    public float getRenderScale() {
+        return mRenderScale;
+    }
+
+    /**
+     * 设置是否使用低质量绘制：关闭绘制翻转缓存时的dither和bitmap过滤，快速翻转时可以减少每帧的开销
+     * @param isLowQuality
+     */
+    public void setLowQualityEnabled(boolean isLowQuality) {
+        mTopPart.setHighQuality(!isLowQuality);
+        mBottomPart.setHighQuality(!isLowQuality);
+    }
+
+    public boolean isLowQualityEnabled() {
+        return !mTopPart.mBitmapPaint.isFilterBitmap();
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        int renderCount = mBaseLayout.mCacheRenderCount;
+        super.draw(canvas);
+        //这一帧没有重新绘制翻转缓存，表示是直接使用的快照
+        if (mIsInTransformation && mCacheTiles != null && renderCount == mBaseLayout.mCacheRenderCount) {
+            mSnapshotFrameCount++;
         }
+    }
 
-        //ʼһ͵ǰviewһСbitmapΪmBaseLayoutĻ
-        mCacheBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+    /**
+     * 快照模式下翻转缓存重新绘制后调用，只invalidate显示了这块区域的part view
+     * @param renderedRect 重新绘制的区域
+     */
+    private void onCacheRendered(Rect renderedRect) {
+        mTopPart.invalidateIfIntersects(renderedRect);
+        mBottomPart.invalidateIfIntersects(renderedRect);
+    }
 
-        mBaseLayout.setCacheCanvas(new Canvas(mCacheBitmap));
+    /**
+     * 设置是否开启快照模式：翻转开始时只绘制一次翻转缓存，之后只有child view发生变化时才重新绘制，
+     * 翻转过程中每一帧只需要绘制二次bitmap，适合内容静止的页面
+     * @param isSnapshotEnabled
+     */
+    public void setSnapshotEnabled(boolean isSnapshotEnabled) {
+        mBaseLayout.setSnapshotEnabled(isSnapshotEnabled);
+    }
 
-        //mTopPartmBottomPartviewmCacheBitmapһЩ任Ͳü
-        mTopPart.setCacheBitmap(mCacheBitmap);
-        mBottomPart.setCacheBitmap(mCacheBitmap);
+    public boolean isSnapshotEnabled() {
+        return mBaseLayout.mIsSnapshotEnabled;
     }
 
     /**
-     * ݴĽǶֵrotationת
+     * 翻转过程中直接使用快照，没有重新绘制翻转缓存的帧数
+     */
+    public int getSnapshotFrameCount() {
+        return mSnapshotFrameCount;
+    }
+
+    /**
+     * 绘制翻转缓存的次数
+     */
+    public int getCacheRenderCount() {
+        return mBaseLayout.mCacheRenderCount;
+    }
+
+    /**
+     * 当前翻转缓存bitmap占用的字节数
+     */
+    public long getCacheByteCount() {
+        long size = 0;
+        if (mCacheTiles != null) {
+            for (CacheTile tile : mCacheTiles) {
+                if (tile.bitmap != null) size += FoldBitmapPool.getBitmapSize(tile.bitmap);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 没有在翻转时立刻释放翻转缓存，不再等待{@link #setCacheReleaseDelay(long)}设置的时间
+     */
+    public void trimCache() {
+        if (mIsInTransformation) return;
+        removeCallbacks(mReleaseCacheAction);
+        releaseCache();
+    }
+
+    /**
+     * 根据传入的角度值rotation做翻转处理
      * @param rotation
      */
     public void setFoldRotation(float rotation) {
-    	//Ƕֵ
+    	//保存角度值
         mFoldRotation = rotation;
 
-        //mTopPartmBottomPartȥת
+        //mTopPart和mBottomPart去处理翻转
         mTopPart.applyFoldRotation(rotation);
         mBottomPart.applyFoldRotation(rotation);
 
-        //Ϊ0ʾǰʵʽǶ-180|0|180,ƽ̵ģôرնԷת̵Ĵ
+        //若为0表示，当前的实际角度是-180|0|180,是平铺的，那么关闭对翻转过程的处理
         setInTransformation(rotation != 0);
 
+        //翻转角度变化后，屏幕上需要显示的条带可能也变了
+        updateCacheTiles(true);
+
         if (mIsAutoScaleEnabled) {
-            float viewScale = 1.0f;
-            if (mWidth > 0) {
-                float dW = (float) (mHeight * Math.abs(Math.sin(Math.toRadians(rotation)))) * CAMERA_DISTANCE_MAGIC_FACTOR;
-                viewScale = mWidth / (mWidth + dW);
-            }
-            //Scale
-            setScale(viewScale);
+            //Scale处理
+            setScale(mGeometry.computeAutoScale(rotation, mWidth, mHeight, CAMERA_DISTANCE_MAGIC_FACTOR));
         }
     }
 
     /**
-     * ȡǰmFoldRotationֵ ֵǱ180ģ ֵΧ(-180,180)
+     * 获取当前的mFoldRotation值 这个值是被180模过的 所有值范围在(-180,180)
      * @return
      */
     public float getFoldRotation() {
@@ -134,7 +508,7 @@ public class FoldableItemLayout extends FrameLayout {
     }
 
     /**
-     * ԵǰviewתmTopPartmBottomPartscale
+     * 对当前view和做翻转的mTopPart、mBottomPart做scale处理
      * @param scale
      */
     public void setScale(float scale) {
@@ -148,7 +522,7 @@ public class FoldableItemLayout extends FrameLayout {
     }
 
     /**
-     * λ¼м۵
+     * 根据位移重新计算中间折叠线
      * @param distance
      */
     public void setRollingDistance(float distance) {
@@ -162,21 +536,29 @@ public class FoldableItemLayout extends FrameLayout {
     }
 
     /**
-     * õǰǷڷת
-     * @param isInTransformation true ʾڷת̣mTopPartmBottomPart
+     * 设置当前是否还是在翻转过程
+     * @param isInTransformation 若true 表示还处于翻转过程，并启用mTopPart和mBottomPart
      */
     private void setInTransformation(boolean isInTransformation) {
         if (mIsInTransformation == isInTransformation) return;
         mIsInTransformation = isInTransformation;
 
-        //isInTransformationжǷڷת̣ǰdraw
+        //开始翻转时才去创建翻转缓存，停止翻转一段时间后再释放
+        if (isInTransformation) {
+            removeCallbacks(mReleaseCacheAction);
+            if (mCacheTiles == null) createCache();
+        } else {
+            scheduleCacheRelease();
+        }
+
+        //根据isInTransformation来判断现在是否处于翻转过程，来处理当前的draw
         mBaseLayout.setDrawToCache(isInTransformation);
         mTopPart.setVisibility(isInTransformation ? VISIBLE : INVISIBLE);
         mBottomPart.setVisibility(isInTransformation ? VISIBLE : INVISIBLE);
     }
 
     /**
-     * ǷԶScale
+     * 设置是否能自动处理Scale属性
      * @param isAutoScaleEnabled
      */
     public void setAutoScaleEnabled(boolean isAutoScaleEnabled) {
@@ -184,20 +566,39 @@ public class FoldableItemLayout extends FrameLayout {
     }
 
     /**
-     * һroot view
-     * ԿFoldableItemLayoutΨһchild viewȥеviews
+     * 设置自动Scale计算时是否用正弦表代替Math.sin，参考{@link FoldGeometry#FoldGeometry(boolean)}
+     * @param isEnabled
+     */
+    public void setSineTableEnabled(boolean isEnabled) {
+        if (mGeometry.isSineTableEnabled() != isEnabled) mGeometry = new FoldGeometry(isEnabled);
+    }
+
+    /**
+     * 一个root view
+     * 可以看做是FoldableItemLayout的唯一child view，它会去管理所有的views
      */
     public FrameLayout getBaseLayout() {
         return mBaseLayout;
     }
 
+    /**
+     * 设置当前view中需要显示的范围，翻转时只缓存和绘制这块范围内的内容
+     * @param visibleBounds 为null表示整个view
+     */
     public void setLayoutVisibleBounds(Rect visibleBounds) {
+        mVisibleBounds = visibleBounds;
         mTopPart.setVisibleBounds(visibleBounds);
         mBottomPart.setVisibleBounds(visibleBounds);
+
+        //可见范围发生了变化，需要重新创建翻转缓存
+        if (mCacheTiles != null) {
+            computeCacheBounds(mTmpBounds);
+            if (!mTmpBounds.equals(mCacheBounds)) createCache();
+        }
     }
 
     /**
-     * ҪڷתviewЧõ
+     * 主要给正在翻转的view加特效用的
      * @param shading
      */
     public void setFoldShading(FoldShading shading) {
@@ -207,32 +608,90 @@ public class FoldableItemLayout extends FrameLayout {
 
 
     /**
-     * ԿFoldableItemLayoutΨһchild viewȥеchild views,תУṩһmCacheCanvasȥת
-     * Ҫתʱָdraw
+     * 翻转缓存中的一块水平条带
+     */
+    private static class CacheTile {
+
+        //条带在FoldableItemLayout中的范围
+        private final Rect bounds = new Rect();
+        //条带在缩放后的缓存中的起止行
+        private int scaledTop, scaledBottom;
+        private int width;
+        //缓存相对view的缩放比例
+        private float scaleX, scaleY;
+
+        //条带不在屏幕上时为null
+        private Bitmap bitmap;
+        private Canvas canvas;
+        //若true 表示bitmap是刚分配的，需要完整绘制一次
+        private boolean isDirty;
+
+        private void allocate(FoldBitmapPool pool, Rect cacheBounds, Bitmap.Config config, boolean isOpaque) {
+            bitmap = pool.obtain(width, scaledBottom - scaledTop, config);
+            //内容不透明时告诉绘制时不需要做alpha混合 API 12以上才有
+            if (config == Bitmap.Config.ARGB_8888 && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1) {
+                bitmap.setHasAlpha(!isOpaque);
+            }
+
+            //BaseLayout还是按view原始坐标绘制，由canvas负责把这个条带平移、缩放到bitmap上
+            canvas = new Canvas(bitmap);
+            canvas.translate(0, -scaledTop);
+            canvas.scale(scaleX, scaleY);
+            canvas.translate(-cacheBounds.left, -cacheBounds.top);
+
+            isDirty = true;
+        }
+
+        private void release(FoldBitmapPool pool) {
+            if (bitmap == null) return;
+            pool.release(bitmap);
+            bitmap = null;
+            canvas = null;
+        }
+
+    }
+
+    /**
+     * 可以看做是FoldableItemLayout的唯一child view，它会去管理所有的child views,翻转过程中，它会提供翻转缓存去做翻转处理
+     * 不需要处理翻转时，会恢复正常的draw
      *
      */
     private static class BaseLayout extends FrameLayout {
 
-        private Canvas mCacheCanvas;
         private boolean mIsDrawToCache;
 
+        //若true 翻转开始时只往翻转缓存绘制一次，之后只有child view发生变化时才重新绘制
+        private boolean mIsSnapshotEnabled;
+        //标示变量 若true 表示翻转缓存的全部内容已经过期，需要重新绘制
+        private boolean mIsCacheDirty = true;
+        //翻转缓存上过期的区域 只在快照模式下使用，重新绘制时只清空并绘制这块区域
+        private final Rect mDirtyRect = new Rect();
+        //最近一次重新绘制的区域
+        private final Rect mRenderedRect = new Rect();
+        private final Rect mTileRect = new Rect();
+        //往翻转缓存绘制的次数
+        private int mCacheRenderCount;
+
+        private final FoldableItemLayout mLayout;
+
         @SuppressWarnings("deprecation")
         private BaseLayout(FoldableItemLayout layout) {
             super(layout.getContext());
+            mLayout = layout;
 
-            //ԼΪchild viewӵFoldableItemLayoutȥ
+            //把自己做为child view添加到FoldableItemLayout中去
             int matchParent = ViewGroup.LayoutParams.MATCH_PARENT;
             LayoutParams params = new LayoutParams(matchParent, matchParent);
             layout.addView(this, params);
 
-            //BaseLayoutҪ±
+            //因BaseLayout覆盖整个父容器，所有要处理下背景
             this.setBackgroundDrawable(layout.getBackground());
             layout.setBackgroundDrawable(null);
 
             setWillNotDraw(false);
         }
 
-        //FoldableItemLayoutchild countfirstSkippedItemschild viewӵBaseLayoutȥ
+        //对FoldableItemLayout的child count大于firstSkippedItems的child view添加到BaseLayout中去
         private void moveInflatedChildren(FoldableItemLayout layout, int firstSkippedItems) {
             while (layout.getChildCount() > firstSkippedItems) {
                 View view = layout.getChildAt(firstSkippedItems);
@@ -244,59 +703,167 @@ public class FoldableItemLayout extends FrameLayout {
 
         @Override
         public void draw(Canvas canvas) {
-            if (mIsDrawToCache) {//תʱ֧
-                mCacheCanvas.drawColor(0, PorterDuff.Mode.CLEAR);
-                super.draw(mCacheCanvas);
+            if (mIsDrawToCache) mLayout.checkCacheOpaque();
+
+            CacheTile[] tiles = mLayout.mCacheTiles;
+            if (mIsDrawToCache && tiles != null) {//处理翻转时，会走这个分支
+                mLayout.updateCacheTiles(false);
+                boolean isOpaque = mLayout.mIsCacheOpaque;
+
+                boolean isDirtyTracked = mIsCacheDirty || !mDirtyRect.isEmpty();
+
+                //开启硬件加速时，只有自己或child view被invalidate了才会调用到这里，
+                //所以没有记录到过期区域时也认为全部内容已经过期
+                if (!mIsSnapshotEnabled || mIsCacheDirty || (!isDirtyTracked && canvas.isHardwareAccelerated())) {
+                    mDirtyRect.set(0, 0, getWidth(), getHeight());
+                }
+
+                boolean isRendered = false;
+                mRenderedRect.setEmpty();
+
+                for (CacheTile tile : tiles) {
+                    if (tile.bitmap == null) continue; // 不在屏幕内的条带
+
+                    //新分配的条带要完整绘制，其他条带只绘制过期的区域
+                    if (tile.isDirty) {
+                        mTileRect.set(tile.bounds);
+                    } else if (!mTileRect.setIntersect(tile.bounds, mDirtyRect)) {
+                        continue;
+                    }
+                    tile.isDirty = false;
+                    //被挡住的部分(例如翻到背面的一半)不需要绘制，重新露出来时会再标记为过期
+                    if (!mTileRect.intersect(mLayout.mNeededBounds)) continue;
+
+                    //只清空并重新绘制过期的区域，区域外的child view会被canvas直接跳过
+                    //内容不透明时会完全覆盖这块区域，不需要先清空
+                    int saveCount = tile.canvas.save();
+                    tile.canvas.clipRect(mTileRect);
+                    if (!isOpaque) tile.canvas.drawColor(0, PorterDuff.Mode.CLEAR);
+                    super.draw(tile.canvas);
+                    tile.canvas.restoreToCount(saveCount);
+
+                    mRenderedRect.union(mTileRect);
+                    isRendered = true;
+                }
+
+                if (isRendered) mCacheRenderCount++;
+
+                mIsCacheDirty = false;
+                mDirtyRect.setEmpty();
+
+                //快照模式下，只有显示了被重新绘制区域的part view才需要重新draw
+                if (mIsSnapshotEnabled && isRendered) mLayout.onCacheRendered(mRenderedRect);
             } else {
                 super.draw(canvas);
             }
         }
-        
-        //һתҪõCanvas
-        private void setCacheCanvas(Canvas cacheCanvas) {
-            mCacheCanvas = cacheCanvas;
+
+        @Override
+        public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+            //child view发生了变化，记录下翻转缓存上需要重新绘制的区域
+            //location保存着child view在当前view中的位置，dirty是child view自己坐标系中的区域
+            if (dirty != null) {
+                int dx = location[0] - getScrollX();
+                int dy = location[1] - getScrollY();
+                markDirty(dirty.left + dx, dirty.top + dy, dirty.right + dx, dirty.bottom + dy);
+            } else {
+                mIsCacheDirty = true;
+            }
+            return super.invalidateChildInParent(location, dirty);
         }
 
-        //תУΪtrue
+        @Override
+        public void invalidate() {
+            mIsCacheDirty = true;
+            super.invalidate();
+        }
+
+        @Override
+        public void invalidate(Rect dirty) {
+            markDirty(dirty.left, dirty.top, dirty.right, dirty.bottom);
+            super.invalidate(dirty);
+        }
+
+        @Override
+        public void invalidate(int l, int t, int r, int b) {
+            markDirty(l, t, r, b);
+            super.invalidate(l, t, r, b);
+        }
+
+        /**
+         * 记录翻转缓存上过期的区域
+         */
+        private void markDirty(int l, int t, int r, int b) {
+            //父类构造函数中调用时mDirtyRect还没有初始化，这时mIsCacheDirty本来就是true
+            if (mDirtyRect == null) return;
+            mDirtyRect.union(l, t, r, b);
+            if (!mDirtyRect.intersect(0, 0, getWidth(), getHeight())) mDirtyRect.setEmpty();
+        }
+
+        //翻转缓存重新创建或释放了
+        private void onCacheChanged() {
+            mIsCacheDirty = true;
+        }
+
+        //翻转过程中，会设置为true
         private void setDrawToCache(boolean drawToCache) {
             if (mIsDrawToCache == drawToCache) return;
             mIsDrawToCache = drawToCache;
             invalidate();
         }
 
+        private void setSnapshotEnabled(boolean isSnapshotEnabled) {
+            mIsSnapshotEnabled = isSnapshotEnabled;
+            mIsCacheDirty = true;
+        }
+
     }
 
     /**
-     * תĺ ڷתview(top part or bottom part)cached bitmapoverlay shadows
+     * 做翻转处理的核心类 它会在正在翻转的view(top part or bottom part)绘制cached bitmap和overlay shadows
      * @author zhuchen
      *
      */
     private static class PartView extends View {
 
-    	//ΪGravity.TOPʾϲ֣ΪGravity.BOTTOMʾ²
+    	//若为Gravity.TOP表示是上部分；若为Gravity.BOTTOM表示是下部分
         private final int mGravity;
 
-        //canvasbitmap еĴdraw
-        private Bitmap mBitmap;
-        //mGravityϤ жϵǰϰ벿ֻ°벿
+        //翻转缓存的各个条带 所有的处理draw在这上面
+        private CacheTile[] mCacheTiles;
+        //FoldableItemLayout的宽高 缓存可能是按比例缩小过的，所以不能直接用bitmap的宽高
+        private int mLayoutWidth, mLayoutHeight;
+        //翻转缓存对应FoldableItemLayout中的范围
+        private final Rect mCacheBounds = new Rect();
+        //根据mGravity熟悉 判断当前是属于上半部分还是下半部分
         private final Rect mBitmapBounds = new Rect();
+        //mBitmapBounds对应到每个条带bitmap上的范围和绘制到当前view上的位置
+        private Rect[] mTileSrcBounds = new Rect[0];
+        private RectF[] mTileDstBounds = new RectF[0];
+        private final Rect mTmpBounds = new Rect();
 
-        //mBitmapBoundsõ
+        //配合mBitmapBounds计算用的
         private float mClippingFactor = 0.5f;
-
-        //һpaint ر
+        //FoldGeometry的输入输出 避免每次计算都分配对象
+        private final FoldGeometry.PartRotation mPartRotation = new FoldGeometry.PartRotation();
+        private final FoldGeometry.Bounds mPartBounds = new FoldGeometry.Bounds();
+        private final FoldGeometry.Bounds mVisibleGeometryBounds = new FoldGeometry.Bounds();
+        private final FoldGeometry.Bounds mTileSrcGeometryBounds = new FoldGeometry.Bounds();
+        private final FoldGeometry.FloatBounds mTileDstGeometryBounds = new FoldGeometry.FloatBounds();
+
+        //一paint 无特别设置
         private final Paint mBitmapPaint;
 
-        //¼ǰviewĿɼΧ
+        //记录当前view的可见范围
         private Rect mVisibleBounds;
 
-        //ֵжǷǰviewʾõ
+        //这二个值用于判断是否当前view能显示用的
         private int mInternalVisibility;
         private int mExtrenalVisibility;
 
-        //¼ǰҪתĽǶ
+        //记录当前要做翻转的角度
         private float mLocalFoldRotation;
-        //תviewЧõ
+        //翻转view加特效用的
         private FoldShading mShading;
 
         public PartView(FoldableItemLayout parent, int gravity) {
@@ -305,7 +872,7 @@ public class FoldableItemLayout extends FrameLayout {
 
             final int matchParent = LayoutParams.MATCH_PARENT;
             parent.addView(this, new LayoutParams(matchParent, matchParent));
-            //ʹrotationXrotationYʱʹviewʱʹЧ
+            //使用rotationX或rotationY时，会使view变大，这时候可以使用这个函数来改善效果
             setCameraDistance(CAMERA_DISTANCE * getResources().getDisplayMetrics().densityDpi);
 
             mBitmapPaint = new Paint();
@@ -316,95 +883,131 @@ public class FoldableItemLayout extends FrameLayout {
         }
 
         /**
-         * ÷תbitmapѡȡbitmapķΧ
-         * @param bitmap
+         * 设置绘制翻转缓存时是否开启dither和bitmap过滤
+         * @param isHighQuality
          */
-        private void setCacheBitmap(Bitmap bitmap) {
-            mBitmap = bitmap;
+        private void setHighQuality(boolean isHighQuality) {
+            if (mBitmapPaint.isFilterBitmap() == isHighQuality) return;
+            mBitmapPaint.setDither(isHighQuality);
+            mBitmapPaint.setFilterBitmap(isHighQuality);
+            invalidate();
+        }
+
+        /**
+         * 设置翻转处理的缓存条带并计算选取bitmap的范围
+         * @param tiles
+         * @param layoutWidth
+         * @param layoutHeight
+         * @param cacheBounds 缓存对应FoldableItemLayout中的范围
+         */
+        private void setCacheTiles(CacheTile[] tiles, int layoutWidth, int layoutHeight, Rect cacheBounds) {
+            mCacheTiles = tiles;
+            mLayoutWidth = layoutWidth;
+            mLayoutHeight = layoutHeight;
+            mCacheBounds.set(cacheBounds);
+
+            int count = tiles == null ? 0 : tiles.length;
+            if (mTileSrcBounds.length < count) {
+                mTileSrcBounds = new Rect[count];
+                mTileDstBounds = new RectF[count];
+                for (int i = 0; i < count; i++) {
+                    mTileSrcBounds[i] = new Rect();
+                    mTileDstBounds[i] = new RectF();
+                }
+            }
+
             calculateBitmapBounds();
         }
 
         /**
-         * õǰviewĿɼΧ mBitmapBoundsжǷн
+         * 把当前part view翻转时需要用到的范围合并到out中
+         * @param screenBounds FoldableItemLayout在屏幕上能看到的范围
+         * @param out
+         */
+        private void collectNeededBounds(Rect screenBounds, Rect out) {
+            if (mInternalVisibility != VISIBLE || mBitmapBounds.isEmpty()) return;
+
+            if (getRotationX() != 0) {
+                //正在翻转的部分投影到屏幕上会被压缩，原本在屏幕外的内容也可能被翻转进来
+                out.union(mBitmapBounds);
+            } else if (mTmpBounds.setIntersect(mBitmapBounds, screenBounds)) {
+                out.union(mTmpBounds);
+            }
+        }
+
+        /**
+         * 设置当前view的可见范围 并和mBitmapBounds进行判断是否有交集
          * @param visibleBounds
          */
         private void setVisibleBounds(Rect visibleBounds) {
             mVisibleBounds = visibleBounds;
+            if (visibleBounds != null) {
+                mVisibleGeometryBounds.set(visibleBounds.left, visibleBounds.top,
+                        visibleBounds.right, visibleBounds.bottom);
+            }
             calculateBitmapBounds();
         }
 
-        //ҪڷתviewЧõ
+        //主要给正在翻转的view加特效用的
         private void setFoldShading(FoldShading shading) {
             mShading = shading;
         }
 
         /**
-         * mGravitymBitmapBounds
+         * 翻转缓存上的dirty区域和当前part view显示的区域有交集时才重新draw
+         * @param dirty
+         */
+        private void invalidateIfIntersects(Rect dirty) {
+            if (Rect.intersects(mBitmapBounds, dirty)) invalidate();
+        }
+
+        /**
+         * 根据mGravity计算mBitmapBounds
          */
         private void calculateBitmapBounds() {
-            if (mBitmap == null) {
-                mBitmapBounds.set(0, 0, 0, 0);
+            if (mCacheTiles == null) {
+                mPartBounds.setEmpty();
             } else {
-                int h = mBitmap.getHeight();
-                int w = mBitmap.getWidth();
-                
-                //mClippingFactortopbottom,h * (1 - mClippingFactor)h * mClippingFactorȥһ
-                //ʵһ£ԸݼmClippingFactorֵķƵ
-                int top = mGravity == Gravity.TOP ? 0 : (int) (h * (1 - mClippingFactor) - 0.5f);
-                int bottom = mGravity == Gravity.TOP ? (int) (h * mClippingFactor + 0.5f) : h;
-
-                mBitmapBounds.set(0, top, w, bottom);
-                if (mVisibleBounds != null) {//mVisibleBounds!=null ҺmVisibleBounds޽ôҪdraw
-                    if (!mBitmapBounds.intersect(mVisibleBounds)) {
-                        mBitmapBounds.set(0, 0, 0, 0); // no intersection
-                    }
+                //若mVisibleBounds!=null 且和mVisibleBounds无交集，那么不需要处理再draw了
+                FoldGeometry.computePartBounds(mGravity == Gravity.TOP, mLayoutWidth, mLayoutHeight, mClippingFactor,
+                        mVisibleBounds == null ? null : mVisibleGeometryBounds, mPartBounds);
+            }
+            mBitmapBounds.set(mPartBounds.left, mPartBounds.top, mPartBounds.right, mPartBounds.bottom);
+
+            //换算到每个条带bitmap上的范围
+            int count = mCacheTiles == null ? 0 : mCacheTiles.length;
+            for (int i = 0; i < count; i++) {
+                CacheTile tile = mCacheTiles[i];
+                FoldGeometry.Bounds src = mTileSrcGeometryBounds;
+                FoldGeometry.FloatBounds dst = mTileDstGeometryBounds;
+
+                if (FoldGeometry.computeTileBounds(mPartBounds, mCacheBounds.left, mCacheBounds.top,
+                        tile.scaleX, tile.scaleY, tile.scaledTop, tile.scaledBottom, src, dst)) {
+                    mTileDstBounds[i].set(dst.left, dst.top, dst.right, dst.bottom);
                 }
+                mTileSrcBounds[i].set(src.left, src.top, src.right, src.bottom);
             }
 
             invalidate();
         }
 
         private void applyFoldRotation(float rotation) {
-            float position = rotation;
-            //Уж ֵ֤ķΧ(-180; 180]
-            while (position < 0) position += 360;
-            position %= 360;
-            if (position > 180) position -= 360; // now poistion within (-180; 180]
-            
-            float rotationX = 0;
-            boolean isVisible = true;
-
-            //жҲȽϸӣԼϸϸ
-            //˼·ǣתpart viewsetRotationX䱳part viewأpart view治
-            if (mGravity == Gravity.TOP) {
-                if (position <= -90 || position == 180) { // (-180; -90] || {180} - will not show
-                    isVisible = false;
-                } else if (position < 0) { // (-90; 0) - applying rotation
-                    rotationX = position;
-                }
-                // [0; 180) - holding still
-            } else {
-                if (position >= 90) { // [90; 180] - will not show
-                    isVisible = false;
-                } else if (position > 0) { // (0; 90) - applying rotation
-                    rotationX = position;
-                }
-                // else: (-180; 0] - holding still
-            }
+            //做翻转的part view处理setRotationX，其背面的part view隐藏，其他part view保存不变
+            FoldGeometry.computePartRotation(rotation, mGravity == Gravity.TOP, mPartRotation);
 
-            //תķ
-            setRotationX(rotationX);
+            //做旋转的方法
+            setRotationX(mPartRotation.rotationX);
 
-            mInternalVisibility = isVisible ? VISIBLE : INVISIBLE;
+            mInternalVisibility = mPartRotation.isVisible ? VISIBLE : INVISIBLE;
             applyVisibility();
 
-            mLocalFoldRotation = position;
+            mLocalFoldRotation = mPartRotation.localRotation;
 
             invalidate(); // needed to draw shadow overlay
         }
 
         /**
-         * scale
+         * scale处理
          * @param scale
          */
         private void applyScale(float scale) {
@@ -413,18 +1016,14 @@ public class FoldableItemLayout extends FrameLayout {
         }
 
         /**
-         * Ӧתʱpart viewλ
+         * 应用旋转动画时，part view的位移
          */
         private void applyRollingDistance(float distance, float scale) {
             // applying translation
             setTranslationY((int) (distance * scale + 0.5f));
 
-            // computing clipping for top view (bottom clipping will be 1 - topClipping)
-            final int h = getHeight() / 2;
-            final float topClipping = h == 0 ? 0.5f : (h - distance) / h / 2;
-
-            //Ĭֵ0.5 part viewλʱҲҪ΢
-            mClippingFactor = mGravity == Gravity.TOP ? topClipping : 1f - topClipping;
+            //默认这个值是0.5 若part view本身发生位移时，也需要跟着做微调
+            mClippingFactor = FoldGeometry.computeClippingFactor(distance, getHeight() / 2, mGravity == Gravity.TOP);
 
             calculateBitmapBounds();
         }
@@ -436,7 +1035,7 @@ public class FoldableItemLayout extends FrameLayout {
         }
 
         /**
-         * mExtrenalVisibilitymInternalVisibilityֵviewǷɼ
+         * 根据mExtrenalVisibility和mInternalVisibility二个值来觉得view的是否可见
          */
         private void applyVisibility() {
             super.setVisibility(mExtrenalVisibility == VISIBLE ? mInternalVisibility : mExtrenalVisibility);
@@ -445,8 +1044,16 @@ public class FoldableItemLayout extends FrameLayout {
         @Override
         public void draw(Canvas canvas) {
             if (mShading != null) mShading.onPreDraw(canvas, mBitmapBounds, mLocalFoldRotation, mGravity);
-            if (mBitmap != null) canvas.drawBitmap(mBitmap, mBitmapBounds, mBitmapBounds, mBitmapPaint);
-            //תpart viewЧ
+            if (mCacheTiles != null) {
+                for (int i = 0; i < mCacheTiles.length; i++) {
+                    Bitmap bitmap = mCacheTiles[i].bitmap;
+                    //只绘制和当前部分相交且在屏幕上的条带
+                    if (bitmap != null && !mTileSrcBounds[i].isEmpty()) {
+                        canvas.drawBitmap(bitmap, mTileSrcBounds[i], mTileDstBounds[i], mBitmapPaint);
+                    }
+                }
+            }
+            //在旋转的part view上做特效处理
             if (mShading != null) mShading.onPostDraw(canvas, mBitmapBounds, mLocalFoldRotation, mGravity);
         }
 
@@ -1,86 +1,230 @@
 package com.alexvasilkov.foldablelayout;
 
-import android.animation.ObjectAnimator;
+import android.animation.TimeInterpolator;
 import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.database.DataSetObserver;
 import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Process;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.SparseArray;
+import android.view.Choreographer;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.ViewGroup;
 import android.view.accessibility.AccessibilityEvent;
+import android.view.animation.DecelerateInterpolator;
 import android.widget.BaseAdapter;
 import android.widget.FrameLayout;
 import com.alexvasilkov.foldablelayout.shading.FoldShading;
 import com.alexvasilkov.foldablelayout.shading.SimpleFoldShading;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
- * һflipboard巭תؼ
+ * 一个类似于flipboard的立体翻转控件
  */
 @SuppressLint("NewApi")
 public class FoldableListLayout extends FrameLayout implements GestureDetector.OnGestureListener {
 
 	/**
-	 * flingupʱתĳʱ
+	 * fling或up触发时，翻转动画的持续的时间
 	 */
     private static final long ANIMATION_DURATION_PER_ITEM = 600;
 
-    //child viewparams
+    //child view的params属性
     private static final LayoutParams PARAMS = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
     
-    //child view
-    private static final int CACHED_LAYOUTS_OFFSET = 2;
-
-    //ڷתʱķתǶȻص
+    //默认在当前显示的二页前后各保留多少页的child view
+    private static final int DEFAULT_LAYOUT_WINDOW_OFFSET = 2;
+
+    //自适应质量：翻转速度超过这个值(角度/秒)时降低绘制质量
+    private static final float DEFAULT_LOW_QUALITY_ROTATION_SPEED = 540f;
+    //自适应质量：最近的平均帧间隔超过这个值(毫秒)时降低绘制质量
+    private static final float DEFAULT_LOW_QUALITY_FRAME_DURATION = 20f;
+    //间隔超过这个值(纳秒)的二次采样不算连续的帧，不参与计算
+    private static final long MAX_SAMPLE_GAP = 100000000L;
+    //平均帧间隔和翻转速度的平滑系数
+    private static final float SAMPLE_SMOOTHING = 0.3f;
+
+    //翻转速度低于这个值(角度/秒)时认为没有在翻转，前后二个方向都预加载
+    private static final float PREFETCH_MIN_ROTATION_SPEED = 90f;
+    //按当前速度预加载接下来多长时间(秒)内会翻到的页
+    private static final float PREFETCH_LOOKAHEAD_TIME = 0.5f;
+
+    //局部更新的类型
+    private static final int UPDATE_INSERT = 1;
+    private static final int UPDATE_REMOVE = 2;
+    private static final int UPDATE_MOVE = 3;
+
+    //数据变化后在原来位置前后多远的范围内查找同一个item id
+    private static final int ITEM_ID_SEARCH_DISTANCE = 20;
+
+    //默认预测到下一帧开始后多长时间(毫秒)，大约是一帧从开始绘制到显示出来的延迟
+    private static final long DEFAULT_TOUCH_PREDICTION_LATENCY = 16;
+    //最多向后预测多长时间(毫秒)，手指停下后超过这个时间就回到实际的位置
+    private static final long MAX_TOUCH_PREDICTION_TIME = 50;
+
+    //fling动画中翻过一页的时间少于这个值(毫秒)时，这一页只绑定占位页
+    private static final float SKIP_BINDING_PAGE_DURATION = 33f;
+
+    //翻转角度变化时需要重新绘制的区域
+    private static final int HALF_TOP = 1;
+    private static final int HALF_BOTTOM = 2;
+
+    //估算每页view本身占用的内存时，每个像素按多少字节算
+    private static final int PAGE_BYTES_PER_PIXEL = 4;
+
+    //用于翻转进行时的翻转角度回调
     private OnFoldRotationListener mFoldRotationListener;
-    //
+    private OnFoldPositionListener mFoldPositionListener;
+    //适配器
     private BaseAdapter mAdapter;
 
-    //¼ǰķתǶ
-    private float mFoldRotation;
-    //СתǶ һСֵ0 ֵ180*(child size - 1)
-    private float mMinRotation, mMaxRotation;
+    //当前的翻转状态：正在翻的页和在这一页已经翻转的角度[0,180)，整个翻转角度相当于mFoldPosition*180+mFoldLocalRotation
+    //页数很多时一个float的翻转角度精度不够，所以分开保存
+    private int mFoldPosition;
+    private float mFoldLocalRotation;
 
 /*    @Override
     protected void onOverScrolled(int scrollX, int scrollY, boolean clampedX, boolean clampedY) {
         super.onOverScrolled(scrollX, scrollY, clampedX, clampedY);
     }*/
 
-    //child view ǵǰҪdraw
+    //二个child view 是当前需要draw的
     private FoldableItemLayout mFirstLayout, mSecondLayout;
-    //ڷתviewЧõ
+    //给正在翻转的view加特效用的
     private FoldShading mFoldShading;
-
-    //浱ǰеchild view
-    private SparseArray<FoldableItemLayout> mFoldableLayoutsMap = new SparseArray<FoldableItemLayout>();
-    //滺child view
-    private Queue<FoldableItemLayout> mFoldableLayoutsCache = new LinkedList<FoldableItemLayout>();
-
-    //flingupʱת
-    private ObjectAnimator mAnimator;
-    //ʾ ʾMotionEvent¼ʱ
-    private long mLastEventTime;
-    //ʾ ¼һ¼Ĵ
+    //翻转时child view缓存bitmap的缩放比例 参考FoldableItemLayout.setRenderScale(..)
+    private float mRenderScale = 1f;
+    //child view翻转缓存bitmap的复用池
+    private FoldBitmapPool mBitmapPool = FoldBitmapPool.getDefault();
+    //在复用池中最多保留多少字节 小于0表示按窗口大小自动计算
+    private long mBitmapPoolSize = -1;
+    //当前加到复用池上限上的字节数
+    private long mBitmapPoolReservation;
+    //child view停止翻转后多久释放缓存bitmap 小于0表示不释放
+    private long mCacheReleaseDelay = FoldableItemLayout.DEFAULT_CACHE_RELEASE_DELAY;
+    //child view是否开启快照模式 参考FoldableItemLayout.setSnapshotEnabled(..)
+    private boolean mIsSnapshotEnabled;
+    //内容不透明时child view是否允许使用RGB_565的翻转缓存
+    private boolean mIsRgb565CacheEnabled = true;
+
+    //是否根据帧间隔和翻转速度自动调整child view的绘制质量
+    private boolean mIsAdaptiveQualityEnabled;
+    //降低质量时翻转缓存使用的缩放比例，1表示不降低分辨率只关闭bitmap过滤
+    private float mLowQualityRenderScale = 1f;
+    private float mLowQualityRotationSpeed = DEFAULT_LOW_QUALITY_ROTATION_SPEED;
+    private float mLowQualityFrameDuration = DEFAULT_LOW_QUALITY_FRAME_DURATION;
+    //当前是否处于低质量绘制
+    private boolean mIsLowQuality;
+    //最近的平均帧间隔(毫秒)
+    private float mAvgFrameDuration;
+    //最近的翻转速度(角度/秒) 正数表示向后翻
+    private float mRotationVelocity;
+    //上一帧和上一次翻转的时间点(纳秒) 0表示没有
+    private long mLastFrameTime;
+    private long mLastRotationTime;
+    private int mLastRotationPosition;
+    private float mLastRotation;
+
+    //空闲时最多预加载当前页前后多少页 0表示不预加载
+    private int mPrefetchDepth;
+    private boolean mIsPrefetchScheduled;
+    private int mPrefetchCount;
+    private int mPrefetchHitCount;
+
+    //在当前显示的二页前后各保留多少页的child view
+    private int mLayoutWindowOffset = DEFAULT_LAYOUT_WINDOW_OFFSET;
+    //保存当前所有的child view
+    private LayoutWindow mLayoutWindow = new LayoutWindow(getLayoutWindowCapacity(mLayoutWindowOffset));
+    //数据变化时重新排列child view用的另一个窗口 和mLayoutWindow交替使用
+    private LayoutWindow mSpareLayoutWindow;
+    //child view释放时回收的item view 按getItemViewType分类，绑定数据时作为convertView传给adapter
+    private final RecycleBin mRecycleBin = new RecycleBin(getLayoutWindowCapacity(mLayoutWindowOffset));
+
+    //所有child view和翻转缓存最多占用的字节数 0表示不限制
+    private long mMemoryBudget;
+    //每次显示一页时递增，用来找出最久没显示过的页
+    private long mShowCounter;
+
+    //AsyncFoldableAdapter在这里准备数据 为null时使用默认的后台线程
+    private static ExecutorService sDefaultLoadExecutor;
+    private ExecutorService mLoadExecutor;
+    //正在准备数据的页
+    private final SparseArray<LoadItemTask<?>> mLoadTasks = new SparseArray<LoadItemTask<?>>();
+
+    //fling或up触发时，做翻转动画用
+    private FoldAnimator mAnimator;
+    //fling翻过多页时的动画从松手时的速度开始减速，停下和点击翻页仍使用setFoldInterpolator设置的插值器
+    private final TimeInterpolator mFlingInterpolator = new DecelerateInterpolator();
+    //为true时翻页动画使用弹簧代替固定时长的动画
+    private boolean mIsSpringEnabled;
+    //一次fling最多翻过多少页
+    private int mMaxFlingPages = Integer.MAX_VALUE;
+
+    //jumpToPosition过程中 原来的页移出了窗口单独保存，和目标页之间做一次翻转
+    private FoldableItemLayout mJumpFromLayout;
+    private int mJumpFromPosition;
+    private int mJumpPosition;
+    //翻页动画的目标页，动画的值是相对这一页的翻转角度
+    private int mAnimationPosition;
+
+    //上一次invalidate时的翻转状态，用来计算这次需要重新绘制的区域
+    private int mLastInvalidatePosition = -1;
+    private float mLastInvalidateRotation;
+    //标示变量 当前分发的事件是否已经处理过了
+    private boolean mIsEventProcessed;
+    //标示变量 记录最后一次事件的处理结果
     private boolean mLastEventResult;
-    //ƴ
-    private GestureDetector mGestureDetector;
+    //跟踪手指在Y轴上的拖动距离和速度
+    private final FoldTouchTracker mTouchTracker = new FoldTouchTracker();
 
-    //ΪЧС
+    //被认为是有效滚动的最小距离
     private float mMinDistanceBeforeScroll;
-    //ʾ true ʾڴ
+    //被认为是fling的最小速度
+    private float mMinFlingVelocity;
+    //标示变量 若true 表示现在触发滚动
     private boolean mIsScrollDetected;
-    //¼˴ιʼʱǰRotationֵ
+    //记录此次滚动开始时，当前的页和在这一页的翻转角度
+    private int mScrollStartPosition;
     private float mScrollStartRotation;
-    //¼˴ιʼʱľ
+    //记录此次滚动开始时，滚动的距离
     private float mScrollStartDistance;
 
+    //为true时手指拖动产生的翻转角度先保存起来，每一帧只更新一次
+    private boolean mIsTouchCoalescingEnabled = true;
+    //还没更新到view上的翻转角度
+    private float mPendingTouchRotation;
+    private boolean mHasPendingTouchRotation;
+    private Choreographer.FrameCallback mTouchFrameCallback;
+
+    //系统内存不足时释放缓存 API 14以上才有，在用到时才创建
+    private ComponentCallbacks2 mComponentCallbacks;
+
+    //为true时按手指的速度预测翻转角度到这一帧显示出来的时间点
+    private boolean mIsTouchPredictionEnabled;
+    private long mTouchPredictionLatency = DEFAULT_TOUCH_PREDICTION_LATENCY;
+    //最后一次预测的角度和它对应的时间点(毫秒)，为0表示没有等待检验的预测
+    private float mPredictedRotation;
+    private long mPredictionTargetTime;
+    //预测误差的统计 单位是角度
+    private int mPredictionCount;
+    private float mPredictionErrorSum;
+    private float mPredictionErrorMax;
+
     public FoldableListLayout(Context context) {
         super(context);
         init(context);
@@ -96,27 +240,37 @@ public class FoldableListLayout extends FrameLayout implements GestureDetector.O
         init(context);
     }
 
-    //ʼ
+    //初始化
     private void init(Context context) {
-        mGestureDetector = new GestureDetector(context, this);
-        //ʼ ڶfoldRotationʾ ĻصsetFoldRotation(..)õ
-        mAnimator = ObjectAnimator.ofFloat(this, "foldRotation", 0);
-        mMinDistanceBeforeScroll = ViewConfiguration.get(context).getScaledPagingTouchSlop();
+        //动画类初始化 每一帧回调setFoldPosition(..)
+        mAnimator = new FoldAnimator(mAnimatorListener);
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        mMinDistanceBeforeScroll = configuration.getScaledPagingTouchSlop();
+        mMinFlingVelocity = configuration.getScaledMinimumFlingVelocity();
 
         mFoldShading = new SimpleFoldShading();
     }
 
     @Override
     protected void dispatchDraw(Canvas canvas) {
-        //ҪdrawĶchild view
-        if (mFirstLayout != null) mFirstLayout.draw(canvas);
+        if (mIsAdaptiveQualityEnabled) updateFrameDuration();
+
+        //需要draw的二个child view
+        //停在某一页时，下面的一页完全被当前页挡住了，不需要绘制，也不会刷新它的翻转缓存
+        if (mFirstLayout != null && !isFirstLayoutOccluded()) mFirstLayout.draw(canvas);
         if (mSecondLayout != null) mSecondLayout.draw(canvas);
     }
 
+    private boolean isFirstLayoutOccluded() {
+        return mFoldLocalRotation == 0 && mJumpFromLayout == null
+                && mSecondLayout != null && mSecondLayout.isOpaqueWhenFlat();
+    }
+
     @Override
     public boolean dispatchTouchEvent(MotionEvent ev) {
+        mIsEventProcessed = false;
         super.dispatchTouchEvent(ev);
-        return getCount() > 0;//child ¼ ת
+        return getCount() > 0;//有child 就拦截事件 用于做翻转处理
     }
 
     @Override
@@ -130,21 +284,154 @@ public class FoldableListLayout extends FrameLayout implements GestureDetector.O
     }
 
     /**
-     * ͨתһЩֵ ɵô˺
+     * 若想通过翻转动作处理一些值 可调用此函数
      * @param listener
      */
     public void setOnFoldRotationListener(OnFoldRotationListener listener) {
         mFoldRotationListener = listener;
     }
 
+    /**
+     * 和{@link #setOnFoldRotationListener(OnFoldRotationListener)}一样，回调的是页和在这一页的翻转角度，页数很多时也不会丢失精度
+     * @param listener
+     */
+    public void setOnFoldPositionListener(OnFoldPositionListener listener) {
+        mFoldPositionListener = listener;
+    }
+
+    /**
+     * 是否把手指拖动产生的翻转合并到每一帧更新一次，默认开启，需要API 16以上
+     * <p/>
+     * 触摸采样率高于屏幕刷新率时，一帧内的多个move事件只会用最后一个更新翻转和回调{@link OnFoldRotationListener}
+     * @param isEnabled
+     */
+    public void setTouchCoalescingEnabled(boolean isEnabled) {
+        mIsTouchCoalescingEnabled = isEnabled;
+        if (!isEnabled) flushTouchRotation();
+    }
+
+    public boolean isTouchCoalescingEnabled() {
+        return mIsTouchCoalescingEnabled;
+    }
+
+    /**
+     * 是否预测拖动的位置，默认关闭，只在{@link #setTouchCoalescingEnabled(boolean)}生效时起作用
+     * <p/>
+     * 开启后每一帧按手指最近的速度把翻转角度外推到这一帧显示出来的时间点，减少页面跟不上手指的感觉，
+     * 下一个触摸采样到来时按实际位置修正。预测的误差可以通过{@link #getPredictionErrorAverage()}查看
+     * @param isEnabled
+     */
+    public void setTouchPredictionEnabled(boolean isEnabled) {
+        mIsTouchPredictionEnabled = isEnabled;
+        mPredictionTargetTime = 0;
+    }
+
+    public boolean isTouchPredictionEnabled() {
+        return mIsTouchPredictionEnabled;
+    }
+
+    /**
+     * 预测到每一帧开始后多长时间，即从开始绘制到显示出来的延迟，默认16毫秒
+     * @param latency 毫秒
+     */
+    public void setTouchPredictionLatency(long latency) {
+        mTouchPredictionLatency = Math.max(0, latency);
+    }
+
+    public long getTouchPredictionLatency() {
+        return mTouchPredictionLatency;
+    }
+
+    /**
+     * 已经检验过的预测次数
+     */
+    public int getPredictionCount() {
+        return mPredictionCount;
+    }
+
+    /**
+     * 预测的角度和手指实际到达的角度的平均误差
+     */
+    public float getPredictionErrorAverage() {
+        return mPredictionCount == 0 ? 0 : mPredictionErrorSum / mPredictionCount;
+    }
+
+    /**
+     * 预测的角度和手指实际到达的角度的最大误差
+     */
+    public float getPredictionErrorMax() {
+        return mPredictionErrorMax;
+    }
+
+    public void resetPredictionStats() {
+        mPredictionCount = 0;
+        mPredictionErrorSum = 0;
+        mPredictionErrorMax = 0;
+    }
+
+    /**
+     * 翻页动画的插值器，默认是AccelerateDecelerateInterpolator，使用弹簧时无效
+     * @param interpolator
+     */
+    public void setFoldInterpolator(TimeInterpolator interpolator) {
+        mAnimator.setInterpolator(interpolator);
+    }
+
+    /**
+     * 翻页动画是否使用弹簧，默认关闭
+     * <p/>
+     * 开启后fling时手指的速度会延续到动画里，翻页动画中途改变目标时速度也保持连续
+     * @param isEnabled
+     */
+    public void setSpringEnabled(boolean isEnabled) {
+        mIsSpringEnabled = isEnabled;
+    }
+
+    public boolean isSpringEnabled() {
+        return mIsSpringEnabled;
+    }
+
+    /**
+     * 弹簧参数，参考{@link FoldAnimator#setSpring(float, float)}
+     * @param stiffness
+     * @param dampingRatio
+     */
+    public void setSpring(float stiffness, float dampingRatio) {
+        mAnimator.setSpring(stiffness, dampingRatio);
+    }
+
+    /**
+     * 一次fling最多翻过多少页，默认不限制，按手指的速度决定翻过多少页。设为1时和原来一样每次只翻一页
+     * <p/>
+     * 快速翻过的中间页不会完整绑定，只显示{@link FoldableAdapter#getPlaceholderView(int, View, ViewGroup)}
+     * 返回的占位页或已经创建的页，停下后再绑定
+     * @param pages
+     */
+    public void setMaxFlingPages(int pages) {
+        if (pages < 1) throw new IllegalArgumentException("Fling should flip at least 1 page");
+        mMaxFlingPages = pages;
+    }
+
+    public int getMaxFlingPages() {
+        return mMaxFlingPages;
+    }
+
+    /**
+     * 替换驱动翻页动画的时钟，参考{@link FoldAnimator#setFrameClock(FoldAnimator.FrameClock)}
+     * @param clock
+     */
+    public void setFoldFrameClock(FoldAnimator.FrameClock clock) {
+        mAnimator.setFrameClock(clock);
+    }
+
     @Override
     protected void onScrollChanged(int l, int t, int oldl, int oldt) {
         super.onScrollChanged(l, t, oldl, oldt);
     }
 
     /**
-     * 봦ǰתviewЧʵִ˺
-     * Ҫ{@link #setAdapter(android.widget.BaseAdapter)}֮ǰ
+     * 若想处理当前翻转view的特效，可实现此函数
+     * 需要在{@link #setAdapter(android.widget.BaseAdapter)}之前调用
      * @param shading
      */
     public void setFoldShading(FoldShading shading) {
@@ -152,314 +439,2097 @@ public class FoldableListLayout extends FrameLayout implements GestureDetector.O
     }
 
     /**
-     * ݵ
-     * @param adapter
+     * 设置翻转时child view缓存bitmap相对view尺寸的缩放比例，对已创建和以后创建的child view都有效
+     * @param renderScale 取值范围(0,1]
      */
-    public void setAdapter(BaseAdapter adapter) {
-        if (mAdapter != null) mAdapter.unregisterDataSetObserver(mDataObserver);
-        mAdapter = adapter;
-        if (mAdapter != null) mAdapter.registerDataSetObserver(mDataObserver);
-        updateAdapterData();
+    public void setRenderScale(float renderScale) {
+        if (renderScale <= 0 || renderScale > 1) {
+            throw new IllegalArgumentException("Render scale should be within (0, 1]");
+        }
+        mRenderScale = renderScale;
+        applyDrawQuality();
+        updateBitmapPoolReservation();
     }
 
-    public BaseAdapter getAdapter() {
-        return mAdapter;
+    public float getRenderScale() {
+        return mRenderScale;
     }
 
-    public int getCount() {
-        return mAdapter == null ? 0 : mAdapter.getCount();
+    /**
+     * 设置是否开启自适应绘制质量：快速翻转或帧间隔过长时，关闭child view绘制翻转缓存时的bitmap过滤，
+     * 并按{@link #setLowQualityRenderScale(float)}降低翻转缓存的分辨率，停在某一页(翻转角度是180的整数倍)时恢复
+     * @param isEnabled
+     */
+    public void setAdaptiveQualityEnabled(boolean isEnabled) {
+        mIsAdaptiveQualityEnabled = isEnabled;
+        resetQualitySamples();
+        if (!isEnabled) setLowQuality(false);
+    }
+
+    public boolean isAdaptiveQualityEnabled() {
+        return mIsAdaptiveQualityEnabled;
     }
 
     /**
-     * adapter³ʼviewͨڳʼadapteradapterݱ仯Ҫʼʱ 
+     * 设置降低质量时翻转缓存的缩放比例，实际使用的是它和{@link #setRenderScale(float)}中较小的一个。
+     * 切换时翻转中的child view需要重新创建翻转缓存，默认1即不降低分辨率
+     * @param renderScale 取值范围(0,1]
      */
-    private void updateAdapterData() {
-        int size = getCount();
-        mMinRotation = 0;
-        mMaxRotation = size == 0 ? 0 : 180 * (size - 1);
+    public void setLowQualityRenderScale(float renderScale) {
+        if (renderScale <= 0 || renderScale > 1) {
+            throw new IllegalArgumentException("Render scale should be within (0, 1]");
+        }
+        mLowQualityRenderScale = renderScale;
+        if (mIsLowQuality) applyDrawQuality();
+    }
 
-        freeAllLayouts(); // clearing old bindings
+    public float getLowQualityRenderScale() {
+        return mLowQualityRenderScale;
+    }
 
-        //¼ draw
-        setFoldRotation(mFoldRotation);
+    /**
+     * 设置降低绘制质量的阈值
+     * @param rotationSpeed 翻转速度，单位 角度/秒
+     * @param frameDuration 最近的平均帧间隔，单位毫秒
+     */
+    public void setLowQualityThresholds(float rotationSpeed, float frameDuration) {
+        mLowQualityRotationSpeed = rotationSpeed;
+        mLowQualityFrameDuration = frameDuration;
     }
 
     /**
-     * ݲrotationֵview
+     * 当前是否因为快速翻转而处于低质量绘制
      */
-    public final void setFoldRotation(float rotation) {
-        setFoldRotation(rotation, false);
+    public boolean isLowQuality() {
+        return mIsLowQuality;
     }
 
     /**
-     * ݲrotationֵview
-     * Ǵתĺĺ
+     * 最近的平均帧间隔，单位毫秒，只在开启自适应质量时统计
      */
-    protected void setFoldRotation(float rotation, boolean isFromUser) {
-        if (isFromUser) mAnimator.cancel();//ȡǰĶ
+    public float getAverageFrameDuration() {
+        return mAvgFrameDuration;
+    }
 
-        //߽ж ֤rotationֵЧΧ֮
-        rotation = Math.min(Math.max(mMinRotation, rotation), mMaxRotation);
-        
-        //¼ÿηתʱĽǶֵ
-        mFoldRotation = rotation;
-        
-        //ȡǰҳ
-        int firstVisiblePosition = (int) (rotation / 180);
-        //ȡڵǰҳѾתĽǶ
-        float localRotation = rotation % 180;
+    /**
+     * 最近的翻转速度，单位 角度/秒
+     */
+    public float getRotationSpeed() {
+        return Math.abs(mRotationVelocity);
+    }
 
-        int size = getCount();
-        //жǷ񻹴ڵǰҳ
-        boolean isHasFirst = firstVisiblePosition < size;
-        //жǷ񻹴һҳ
-        boolean isHasSecond = firstVisiblePosition + 1 < size;
+    private void updateFrameDuration() {
+        long now = System.nanoTime();
+        long duration = now - mLastFrameTime;
+        if (mLastFrameTime != 0 && duration < MAX_SAMPLE_GAP) {
+            mAvgFrameDuration += (duration / 1000000f - mAvgFrameDuration) * SAMPLE_SMOOTHING;
+        }
+        mLastFrameTime = now;
+    }
 
-        //ڻȡchild view
-        FoldableItemLayout firstLayout = isHasFirst ? getLayoutForItem(firstVisiblePosition) : null;
-        FoldableItemLayout secondLayout = isHasSecond ? getLayoutForItem(firstVisiblePosition + 1) : null;
+    /**
+     * 根据这次的翻转角度更新翻转速度，停在某一页时清零
+     */
+    private void updateRotationVelocity(int position, float rotation) {
+        if (rotation == 0) {
+            mRotationVelocity = 0;
+            mLastRotationTime = 0;
+            return;
+        }
 
-        if (isHasFirst) {
-        	//ת
-            firstLayout.setFoldRotation(localRotation);
-            onFoldRotationChanged(firstLayout, firstVisiblePosition);
+        long now = System.nanoTime();
+        long duration = now - mLastRotationTime;
+        if (mLastRotationTime != 0 && duration > 0 && duration < MAX_SAMPLE_GAP) {
+            float distance = (position - mLastRotationPosition) * 180f + rotation - mLastRotation;
+            float velocity = distance * 1000000000f / duration;
+            mRotationVelocity += (velocity - mRotationVelocity) * SAMPLE_SMOOTHING;
         }
+        mLastRotationPosition = position;
+        mLastRotation = rotation;
+        mLastRotationTime = now;
+    }
 
-        if (isHasSecond) {
-        	//ת
-            secondLayout.setFoldRotation(localRotation - 180);
-            onFoldRotationChanged(secondLayout, firstVisiblePosition + 1);
+    /**
+     * 根据这次的翻转角度决定是否切换绘制质量
+     * @param rotation 在当前页的翻转角度
+     */
+    private void updateDrawQuality(float rotation) {
+        if (!mIsAdaptiveQualityEnabled) return;
+
+        //停在某一页时恢复正常质量 下次翻转重新统计
+        if (rotation == 0) {
+            resetQualitySamples();
+            setLowQuality(false);
+            return;
         }
 
-        boolean isReversedOrder = localRotation <= 90;
-        //жһϸӵļļɵóģϷѾϸϸƷ
-        //˼·ǣĸchild view ҪתͰ˭
-        if (isReversedOrder) {
-            mFirstLayout = secondLayout;
-            mSecondLayout = firstLayout;
-        } else {
-            mFirstLayout = firstLayout;
-            mSecondLayout = secondLayout;
+        //翻转过程中只降低不恢复，避免来回切换导致翻转缓存反复重建
+        if (getRotationSpeed() > mLowQualityRotationSpeed || mAvgFrameDuration > mLowQualityFrameDuration) {
+            setLowQuality(true);
         }
+    }
+
+    private void resetQualitySamples() {
+        mAvgFrameDuration = 0;
+        mLastFrameTime = 0;
+    }
 
-        //תеĻص
-        if (mFoldRotationListener != null) mFoldRotationListener.onFoldRotation(rotation, isFromUser);
+    private void setLowQuality(boolean isLowQuality) {
+        if (mIsLowQuality == isLowQuality) return;
+        mIsLowQuality = isLowQuality;
+        applyDrawQuality();
+    }
 
-        invalidate(); // when hardware acceleration is enabled view may not be invalidated and redrawn, but we need it
+    private float getCurrentRenderScale() {
+        return mIsLowQuality ? Math.min(mRenderScale, mLowQualityRenderScale) : mRenderScale;
     }
 
     /**
-     * ⴦ת״̬
-     * @param layout
-     * @param position
+     * 把当前的绘制质量应用到所有child view
      */
-    protected void onFoldRotationChanged(FoldableItemLayout layout, int position) {
+    private void applyDrawQuality() {
+        float renderScale = getCurrentRenderScale();
+
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout != null) {
+                layout.setLowQualityEnabled(mIsLowQuality);
+                layout.setRenderScale(renderScale);
+            }
+        }
+    }
 
+    /**
+     * 设置child view翻转缓存bitmap的复用池，默认是进程内共享的{@link FoldBitmapPool#getDefault()}
+     * <p/>
+     * 显示在窗口中时会把{@link #setBitmapPoolSize(long)}的大小加到池的上限上，离开窗口时再减掉
+     * @param pool
+     */
+    public void setBitmapPool(FoldBitmapPool pool) {
+        if (pool == null) throw new NullPointerException("Bitmap pool cannot be null");
+        if (mBitmapPool == pool) return;
+        //上限的份额转移到新的池
+        long reserved = mBitmapPoolReservation;
+        mBitmapPool.adjustMaxSize(-reserved);
+        mBitmapPool = pool;
+        mBitmapPool.adjustMaxSize(reserved);
+
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout != null) layout.setBitmapPool(pool);
+        }
     }
 
-    public float getFoldRotation() {
-        return mFoldRotation;
+    public FoldBitmapPool getBitmapPool() {
+        return mBitmapPool;
     }
 
     /**
-     * õһchild view
-     * @param position
-     * @return
+     * 设置这个列表在复用池中最多保留多少字节的bitmap，显示在窗口中时才会加到池的上限上
+     * @param bytes 小于0表示按窗口大小自动计算：窗口能保存的页数 × 一页翻转缓存的大小(按ARGB_8888和renderScale估算)，默认如此
      */
-    private FoldableItemLayout getLayoutForItem(int position) {
-        FoldableItemLayout layout = mFoldableLayoutsMap.get(position);
-        //ǰѴڴchild view ֱӷ
-        if (layout != null) return layout;
-
-        //ڻлȡ
-        layout = mFoldableLayoutsCache.poll();
+    public void setBitmapPoolSize(long bytes) {
+        mBitmapPoolSize = bytes;
+        updateBitmapPoolReservation();
+    }
 
-        //ԸmFoldableLayoutsMapchild view
-        if (layout == null) {
-            int farthestItem = position;
+    public long getBitmapPoolSize() {
+        return mBitmapPoolSize;
+    }
 
-            int size = mFoldableLayoutsMap.size();
-            for (int i = 0; i < size; i++) {
-                int pos = mFoldableLayoutsMap.keyAt(i);
-                if (Math.abs(position - pos) > Math.abs(position - farthestItem)) {
-                    farthestItem = pos;
-                }
+    /**
+     * 按当前的设置和尺寸更新这个列表在复用池上限中的份额，不在窗口中时份额为0
+     */
+    private void updateBitmapPoolReservation() {
+        long size = 0;
+        if (getWindowToken() != null) {
+            if (mBitmapPoolSize >= 0) {
+                size = mBitmapPoolSize;
+            } else {
+                //和FoldableItemLayout一样 缓存的宽高按renderScale缩放后取整
+                long width = (long) Math.ceil(getWidth() * mRenderScale);
+                long height = (long) Math.ceil(getHeight() * mRenderScale);
+                size = getLayoutWindowCapacity(mLayoutWindowOffset) * width * height * 4;
             }
+        }
+        mBitmapPool.adjustMaxSize(size - mBitmapPoolReservation);
+        mBitmapPoolReservation = size;
+    }
 
-            if (Math.abs(farthestItem - position) > CACHED_LAYOUTS_OFFSET) {
-                layout = mFoldableLayoutsMap.get(farthestItem);
-                mFoldableLayoutsMap.remove(farthestItem);
-                layout.getBaseLayout().removeAllViews(); // clearing old data
-            }
+    /**
+     * 设置child view停止翻转后多久释放缓存bitmap，参考FoldableItemLayout.setCacheReleaseDelay(..)
+     * @param delay 单位毫秒，0表示停止翻转后立刻释放，小于0表示一直保留
+     */
+    public void setCacheReleaseDelay(long delay) {
+        mCacheReleaseDelay = delay;
+
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout != null) layout.setCacheReleaseDelay(delay);
         }
+    }
 
-        //ûҵЧchild view һ
-        if (layout == null) {
-            // if still no suited layout - create it
-            layout = new FoldableItemLayout(getContext());
-            layout.setFoldShading(mFoldShading);
-            addView(layout, PARAMS);
+    public long getCacheReleaseDelay() {
+        return mCacheReleaseDelay;
+    }
+
+    /**
+     * 设置child view是否开启快照模式，参考FoldableItemLayout.setSnapshotEnabled(..)
+     * @param isSnapshotEnabled
+     */
+    public void setSnapshotEnabled(boolean isSnapshotEnabled) {
+        mIsSnapshotEnabled = isSnapshotEnabled;
+
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout != null) layout.setSnapshotEnabled(isSnapshotEnabled);
         }
+    }
+
+    public boolean isSnapshotEnabled() {
+        return mIsSnapshotEnabled;
+    }
 
-        // Դ
-        View view = mAdapter.getView(position, null, layout.getBaseLayout()); // TODO: use recycler
-        layout.getBaseLayout().addView(view, PARAMS);
+    /**
+     * 设置内容不透明时child view是否允许使用RGB_565的翻转缓存，参考FoldableItemLayout.setRgb565CacheEnabled(..)
+     * @param isEnabled
+     */
+    public void setRgb565CacheEnabled(boolean isEnabled) {
+        mIsRgb565CacheEnabled = isEnabled;
 
-        //뼯й
-        mFoldableLayoutsMap.put(position, layout);
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout != null) layout.setRgb565CacheEnabled(isEnabled);
+        }
+    }
 
-        return layout;
+    public boolean isRgb565CacheEnabled() {
+        return mIsRgb565CacheEnabled;
     }
 
     /**
-     * ͷchild view
+     * 所有child view翻转过程中直接使用快照的帧数总和
      */
-    private void freeAllLayouts() {
-        int size = mFoldableLayoutsMap.size();
-        for (int i = 0; i < size; i++) {
-            FoldableItemLayout layout = mFoldableLayoutsMap.valueAt(i);
-            layout.getBaseLayout().removeAllViews();
-            //Ƴchild viewŵ
-            mFoldableLayoutsCache.offer(layout);
+    public int getSnapshotFrameCount() {
+        int count = 0;
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout != null) count += layout.getSnapshotFrameCount();
         }
-        mFoldableLayoutsMap.clear();
+        return count;
     }
 
     /**
-     * һҳһҳ
-     * @param index
+     * 设置在当前显示的二页前后各保留多少页的child view，翻回这些页时不用重新绑定数据，默认2。
+     * 值越大占用的内存越多，预加载的页数也不会超过这个值
+     * @param offset
      */
-    public void scrollToPosition(int index) {
-        index = Math.max(0, Math.min(index, getCount() - 1));
+    public void setLayoutWindowOffset(int offset) {
+        if (offset < 0) throw new IllegalArgumentException("Layout window offset should be >= 0");
+        if (mLayoutWindowOffset == offset) return;
+        mLayoutWindowOffset = offset;
+        mPrefetchDepth = Math.min(mPrefetchDepth, offset);
+        //窗口中所有的页都释放时item view都能保存下来
+        mRecycleBin.setMaxScrapViews(getLayoutWindowCapacity(offset));
+
+        //已创建的child view放到新的窗口中继续使用，多出来的移除
+        freeAllLayouts();
+        LayoutWindow window = new LayoutWindow(getLayoutWindowCapacity(offset));
+        int count = 0;
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout == null) continue;
+            if (count < window.getCapacity()) {
+                window.setLayoutAt(count++, layout);
+            } else {
+                removeView(layout);
+            }
+        }
+        mLayoutWindow = window;
+        mFirstLayout = mSecondLayout = null;
 
-        //ȡĿλõĽǶ
-        float rotation = index * 180f;
-        //ǰλõĽǶ
-        float current = getFoldRotation();
-        //ʣҪתĽǶȼ㶯ĳʱ
-        long duration = (long) Math.abs(ANIMATION_DURATION_PER_ITEM * (rotation - current) / 180f);
+        setFoldPosition(mFoldPosition, mFoldLocalRotation);
+        updateBitmapPoolReservation();
+    }
 
-        //ö ʼ
-        mAnimator.cancel();
-        mAnimator.setFloatValues(current, rotation);
-        mAnimator.setDuration(duration).start();
+    public int getLayoutWindowOffset() {
+        return mLayoutWindowOffset;
+    }
+
+    //当前显示的二页加上前后各offset页
+    private static int getLayoutWindowCapacity(int offset) {
+        return 2 * offset + 2;
     }
 
     /**
-     * ݵǰλõĽǶ жϹͣڵǰҳǹһҳ
+     * 设置空闲时最多预加载当前页前后多少页：在二帧之间的空闲时间里提前创建、绑定数据并布局，翻到这些页时不用再等待。
+     * 实际预加载的页数根据翻转的方向和速度决定，翻转时只预加载前进方向上的页
+     * @param depth 0表示不预加载，最大不超过缓存的child view数
      */
-    protected void scrollToNearestPosition() {
-        float current = getFoldRotation();
-        //跭תǶrotation%180ֳֵɶ(0,90)(90,180)(0,90)ʱһҳ(90,180)ʱһҳ
-        //ͨrotation = (rotation+90) rotationֵ(90,180)(180,270)ôrotation/180ʱֵһ䡢һֵ+1
-        //Դ(rotation+90)/180ֵҪô rotation/180 Ҫô(rotation/180+1)
-        scrollToPosition((int) ((current + 90f) / 180f));
+    public void setPrefetchDepth(int depth) {
+        if (depth < 0) throw new IllegalArgumentException("Prefetch depth should be >= 0");
+        mPrefetchDepth = Math.min(depth, mLayoutWindowOffset);
+        schedulePrefetch();
+    }
+
+    public int getPrefetchDepth() {
+        return mPrefetchDepth;
     }
 
     /**
-     * ¼
-     * @param event
-     * @return
+     * 预加载的页数
      */
-    private boolean processTouch(MotionEvent event) {
-    	//жthat eventǷѱִˣԭonInterceptTouchEventonTouchEventпȥthat event
-        long eventTime = event.getEventTime();
-        if (mLastEventTime == eventTime) return mLastEventResult;
-        mLastEventTime = eventTime;
-
-        //up¼ʱҪڷתviewλ,ͣڵǰҳǹһҳ
-        if (event.getActionMasked() == MotionEvent.ACTION_UP && mIsScrollDetected) {
-            mIsScrollDetected = false;
-            scrollToNearestPosition();
-        }
-
-        if (getCount() > 0) {
-            MotionEvent eventCopy = MotionEvent.obtain(event);
-            //view YϷλʱҪYֵ
-            eventCopy.offsetLocation(0, getTranslationY());
-            mLastEventResult = mGestureDetector.onTouchEvent(eventCopy);
-            eventCopy.recycle();
-        } else {
-            mLastEventResult = false;
-        }
+    public int getPrefetchCount() {
+        return mPrefetchCount;
+    }
 
-        return mLastEventResult;
+    /**
+     * 预加载的页中后来真正翻到的页数，和{@link #getPrefetchCount()}一起用来调整预加载的页数
+     */
+    public int getPrefetchHitCount() {
+        return mPrefetchHitCount;
     }
 
-    @Override
-    public boolean onDown(MotionEvent event) {
-        return false;
+    public void resetPrefetchStats() {
+        mPrefetchCount = mPrefetchHitCount = 0;
     }
 
-    @Override
-    public void onShowPress(MotionEvent event) {
-        // NO-OP
+    /**
+     * 设置{@link AsyncFoldableAdapter}准备数据用的线程池，默认是一个低优先级的后台线程
+     * @param executor
+     */
+    public void setLoadExecutor(ExecutorService executor) {
+        mLoadExecutor = executor;
     }
 
-    @Override
-    public boolean onSingleTapUp(MotionEvent event) {
-        return false;
+    /**
+     * 设置用于填充数据的适配器
+     * @param adapter
+     */
+    public void setAdapter(BaseAdapter adapter) {
+        if (mAdapter != null) mAdapter.unregisterDataSetObserver(mDataObserver);
+        if (mAdapter instanceof FoldableAdapter) ((FoldableAdapter) mAdapter).unregisterItemObserver(mItemObserver);
+        //旧adapter的item view不能给新的adapter复用
+        freeAllLayouts();
+        //FoldableAdapter的占位页单独占用一种类型
+        int viewTypeCount = adapter == null ? 1 : adapter.getViewTypeCount();
+        mRecycleBin.setViewTypeCount(adapter instanceof FoldableAdapter ? viewTypeCount + 1 : viewTypeCount);
+        mAdapter = adapter;
+        if (mAdapter != null) mAdapter.registerDataSetObserver(mDataObserver);
+        if (mAdapter instanceof FoldableAdapter) ((FoldableAdapter) mAdapter).registerItemObserver(mItemObserver);
+        updateAdapterData();
     }
 
-    @Override
-    public void onLongPress(MotionEvent event) {
-        // NO-OP
+    public BaseAdapter getAdapter() {
+        return mAdapter;
     }
 
-    @Override
-    public boolean onRequestSendAccessibilityEvent(View child, AccessibilityEvent event) {
-        return super.onRequestSendAccessibilityEvent(child, event);
+    public int getCount() {
+        return mAdapter == null ? 0 : mAdapter.getCount();
     }
 
-    @Override
-    public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
-        //Ҫe1ȥe2.ôɵóһۣϻdistance »distanceǸ
-    	float distance = e1.getY() - e2.getY();
-        // ʼʼһЩ
-        if (!mIsScrollDetected && Math.abs(distance) > mMinDistanceBeforeScroll) {
-            mIsScrollDetected = true;
-            mScrollStartRotation = getFoldRotation();
-            mScrollStartDistance = distance;
+    /**
+     * 更新adapter，重新初始化view，通常在初始化adapter或adapter因数据变化需要初始化时 会调用
+     * adapter有稳定的item id时，只重新绑定新增或变化了的页
+     */
+    private void updateAdapterData() {
+        if (mAdapter != null && mAdapter.hasStableIds()) {
+            remapLayouts();
+        } else {
+            freeAllLayouts(); // clearing old bindings
+            //重新计算 并draw
+            moveFoldPosition(mFoldPosition, -1);
         }
+    }
 
-        if (mIsScrollDetected) {
-            float rotation = (2 * (distance - mScrollStartDistance) / getHeight()) * 180f;
-            //ʼת
-            setFoldRotation(mScrollStartRotation + rotation, true);
+    /**
+     * 数据变化后，按item id把还存在的页移到新的位置上继续使用，
+     * 当前页的item位置变了的话，翻转角度也跟着调整，保持显示的还是同一个item
+     */
+    private void remapLayouts() {
+        LayoutWindow window = mLayoutWindow;
+        int count = getCount();
+        int first = mFoldPosition;
+        int newFirst = -1;
+        int newAnimationPosition = -1;
+
+        for (int i = 0; i < window.getCapacity(); i++) {
+            int position = window.getPositionAt(i);
+            int newPosition = position < 0 ? -1 : findItemPosition(window.getItemIdAt(i), position, count);
+            window.setTargetPositionAt(i, newPosition);
+            if (position == first) newFirst = newPosition;
+            if (position >= 0 && position == mAnimationPosition) newAnimationPosition = newPosition;
         }
+        //只知道数据变了，不知道哪些页变了，还存在的页都要重新绑定
+        relocateLayouts(true);
 
-        return mIsScrollDetected;
+        //重新计算 并draw，当前的item已经不在了就停在原来的位置
+        moveFoldPosition(newFirst >= 0 ? newFirst : mFoldPosition, newAnimationPosition);
     }
 
-    @Override
-    public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
-        float rotation = getFoldRotation();
-        if (rotation % 180 == 0) return false;
+    /**
+     * 按{@link LayoutWindow#setTargetPositionAt(int, int)}设置的新位置重新排列所有的页：
+     * 还存在的页移到新位置对应的地方继续使用，其他页释放掉
+     * @param isStale 还存在的页是否要标记为过期，显示或预加载时再重新绑定，只有局部更新通知明确没有变化的页才不需要
+     */
+    private void relocateLayouts(boolean isStale) {
+        LayoutWindow window = mLayoutWindow;
+        int capacity = window.getCapacity();
+        if (mSpareLayoutWindow == null || mSpareLayoutWindow.getCapacity() != capacity) {
+            mSpareLayoutWindow = new LayoutWindow(capacity);
+        }
+        LayoutWindow target = mSpareLayoutWindow;
+        int count = getCount();
+
+        //还在准备数据的页不知道准备的是哪个item的数据，直接释放掉
+        for (int i = 0; i < capacity; i++) {
+            int position = window.getPositionAt(i);
+            if (position >= 0 && mLoadTasks.get(position) != null) {
+                recycleItemView(window.getLayoutAt(i));
+                window.unbind(i);
+            }
+        }
+        cancelAllItemLoads();
+
+        //还存在的页移到新位置对应的地方
+        for (int i = 0; i < capacity; i++) {
+            FoldableItemLayout layout = window.getLayoutAt(i);
+            int newPosition = window.getTargetPositionAt(i);
+            if (layout == null || window.getPositionAt(i) < 0 || newPosition < 0 || newPosition >= count) continue;
+            int slot = target.getSlot(newPosition);
+            if (target.getLayoutAt(slot) != null) continue;
+
+            target.setLayoutAt(slot, layout);
+            target.bind(slot, newPosition);
+            target.setPrefetchedAt(slot, window.isPrefetchedAt(i));
+            target.setLastShownAt(slot, window.getLastShownAt(i));
+            target.setPlaceholderAt(slot, window.isPlaceholderAt(i));
+
+            //不在当前页附近的页先不重新绑定，数据变化很频繁时(例如不断在后面追加)也不会有额外的开销
+            target.setStaleAt(slot, isStale || window.isStaleAt(i));
+            target.setLoadCancelledAt(slot, window.isLoadCancelledAt(i));
+            target.setItemIdAt(slot, mAdapter.getItemId(newPosition));
+
+            window.setLayoutAt(i, null);
+            window.unbind(i);
+        }
 
-        int position = (int) (rotation / 180f);
-        //ҲɻΪʲôpositionposition-1أĻڹУrotationֵɲ
-        //ǺܷѾ
-        scrollToPosition(velocityY > 0 ? position : position + 1);
-        return true;
-    }
+        //剩下的页释放掉，child view放到空着的地方以后复用
+        int emptySlot = 0;
+        for (int i = 0; i < capacity; i++) {
+            FoldableItemLayout layout = window.getLayoutAt(i);
+            if (layout == null) continue;
 
-    //adapterõļ
-    private DataSetObserver mDataObserver = new DataSetObserver() {
-        @Override
-        public void onChanged() {
-            super.onChanged();
-            updateAdapterData();
+            recycleItemView(layout);
+            while (target.getLayoutAt(emptySlot) != null) emptySlot++;
+            target.setLayoutAt(emptySlot, layout);
+            target.setLastShownAt(emptySlot, window.getLastShownAt(i));
+
+            window.setLayoutAt(i, null);
+            window.unbind(i);
         }
 
-        @Override
+        mSpareLayoutWindow = window;
+        mLayoutWindow = target;
+    }
+
+    /**
+     * 局部更新：从positionStart开始的itemCount页数据变了，只重新绑定已经创建了的这些页
+     */
+    private void onItemRangeChanged(int positionStart, int itemCount) {
+        LayoutWindow window = mLayoutWindow;
+        for (int i = 0; i < window.getCapacity(); i++) {
+            int position = window.getPositionAt(i);
+            if (position < positionStart || position >= positionStart + itemCount) continue;
+
+            FoldableItemLayout layout = window.getLayoutAt(i);
+            recycleItemView(layout);
+            bindItemView(layout, position, window.isPlaceholderAt(i));
+            window.setStaleAt(i, false);
+            window.setItemIdAt(i, mAdapter.getItemId(position));
+
+            //正在翻转的页重新绑定后翻转缓存会自动更新，没在翻转的页旧的翻转缓存已经没用了
+            layout.trimCache();
+        }
+        invalidate();
+    }
+
+    /**
+     * 局部更新：插入、删除或移动了一些页，已经创建的页移到新的位置上继续使用，
+     * 当前页前面的页插入或删除时，翻转角度也跟着调整，保持显示的还是同一页
+     */
+    private void onItemPositionsChanged(int update, int positionStart, int itemCount, int toPosition) {
+        LayoutWindow window = mLayoutWindow;
+        for (int i = 0; i < window.getCapacity(); i++) {
+            int position = window.getPositionAt(i);
+            window.setTargetPositionAt(i, position < 0 ? -1
+                    : mapPosition(position, update, positionStart, itemCount, toPosition));
+        }
+        //插入、删除或移动不会改变还存在的页的数据
+        relocateLayouts(false);
+
+        int newFirst = mapPosition(mFoldPosition, update, positionStart, itemCount, toPosition);
+        //当前页被删除了 停在它后面的一页
+        if (newFirst < 0) newFirst = positionStart;
+
+        moveFoldPosition(newFirst, mapPosition(mAnimationPosition, update, positionStart, itemCount, toPosition));
+    }
+
+    /**
+     * 数据变化后当前页移到了newPosition：正在进行的拖动、翻页动画和跳转也跟着移动，
+     * 下一帧不会回到原来的位置上(那里已经是别的item了)
+     * @param newPosition
+     * @param newAnimationPosition 翻页动画的目标页现在的位置，-1表示不知道或者已经被删除了
+     */
+    private void moveFoldPosition(int newPosition, int newAnimationPosition) {
+        int delta = newPosition - mFoldPosition;
+        //拖动和动画的角度都是相对某一页的，这一页和当前页一起移动，显示的角度不变
+        mScrollStartPosition += delta;
+        mLastRotationPosition += delta;
+
+        if (mJumpFromLayout != null) {
+            //跳转的过渡中当前页就是目标页
+            mJumpFromPosition += delta;
+            mJumpPosition = mFoldPosition = newPosition;
+            setJumpRotation(mAnimator.getValue());
+            return;
+        }
+
+        int animationPosition = mAnimationPosition + delta;
+        boolean isTargetMoved = newAnimationPosition >= 0 && newAnimationPosition != animationPosition;
+        mAnimationPosition = animationPosition;
+        setFoldPosition(newPosition, mFoldLocalRotation, false);
+
+        //目标页和当前页之间插入或删除了页，从现在的位置重新开始翻到目标页
+        if (mAnimator.isRunning() && isTargetMoved) scrollToPosition(newAnimationPosition, mAnimator.getVelocity());
+    }
+
+    /**
+     * 计算插入、删除或移动之后，原来在position的页现在的位置
+     * @return 已经被删除时返回-1
+     */
+    private static int mapPosition(int position, int update, int positionStart, int itemCount, int toPosition) {
+        switch (update) {
+            case UPDATE_INSERT:
+                return position >= positionStart ? position + itemCount : position;
+            case UPDATE_REMOVE:
+                if (position < positionStart) return position;
+                return position < positionStart + itemCount ? -1 : position - itemCount;
+            case UPDATE_MOVE:
+                if (position == positionStart) return toPosition;
+                if (positionStart < toPosition && position > positionStart && position <= toPosition) return position - 1;
+                if (toPosition < positionStart && position >= toPosition && position < positionStart) return position + 1;
+                return position;
+            default:
+                return position;
+        }
+    }
+
+    /**
+     * 在原来位置附近查找item id现在的位置
+     * @return 找不到时返回-1
+     */
+    private int findItemPosition(long itemId, int oldPosition, int count) {
+        if (oldPosition < count && mAdapter.getItemId(oldPosition) == itemId) return oldPosition;
+
+        for (int d = 1; d <= ITEM_ID_SEARCH_DISTANCE; d++) {
+            int before = oldPosition - d;
+            int after = oldPosition + d;
+            if (before >= 0 && before < count && mAdapter.getItemId(before) == itemId) return before;
+            if (after < count && mAdapter.getItemId(after) == itemId) return after;
+        }
+        return -1;
+    }
+
+    /**
+     * 根据参数rotation值更新view，页数很多时请使用{@link #setFoldPosition(int, float)}
+     */
+    public final void setFoldRotation(float rotation) {
+        //直接设置的角度优先，丢掉还没更新的拖动
+        cancelTouchRotation();
+        setFoldRotation(rotation, false);
+    }
+
+    /**
+     * 兼容原来的翻转角度，换算成页和在这一页的翻转角度
+     */
+    protected void setFoldRotation(float rotation, boolean isFromUser) {
+        int position = (int) Math.floor(rotation / 180f);
+        setFoldPosition(position, rotation - position * 180f, isFromUser);
+    }
+
+    /**
+     * 翻到position这一页，并在这一页翻转localRotation度
+     * @param position
+     * @param localRotation 超出[0,180)时换算到前后的页上
+     */
+    public final void setFoldPosition(int position, float localRotation) {
+        cancelTouchRotation();
+        setFoldPosition(position, localRotation, false);
+    }
+
+    /**
+     * 根据页和在这一页的翻转角度更新view
+     * 这个函数是处理翻转的核心函数
+     */
+    protected void setFoldPosition(int position, float localRotation, boolean isFromUser) {
+        if (isFromUser) mAnimator.cancel();//取消当前的动画
+        //跳转的过渡还没结束就被打断了 直接显示目标页
+        endJump();
+
+        //超出[0,180)的角度换算到前后的页上
+        long page = position;
+        if (localRotation < 0 || localRotation >= 180) {
+            long pages = (long) Math.floor(localRotation / 180f);
+            page += pages;
+            localRotation -= pages * 180f;
+            //略小于0的角度(例如停下时的-5e-6)加上180后会舍入成180，这时属于后一页的开始，不能退回前一页
+            if (localRotation >= 180) {
+                page++;
+                localRotation = 0;
+            } else if (localRotation < 0) {
+                localRotation = 0; // float rounding
+            }
+        }
+
+        int size = getCount();
+        //边界判断 保证在有效范围之内，最后一页不能再翻
+        if (page < 0) {
+            page = 0;
+            localRotation = 0;
+        } else if (page >= size - 1) {
+            page = Math.max(0, size - 1);
+            localRotation = 0;
+        }
+        position = (int) page;
+
+        //记录每次翻转时的状态
+        mFoldPosition = position;
+        mFoldLocalRotation = localRotation;
+        
+        //当前页的索引
+        int firstVisiblePosition = position;
+
+        //判断是否还存在当前页
+        boolean isHasFirst = firstVisiblePosition < size;
+        //判断是否还存在下一页
+        boolean isHasSecond = firstVisiblePosition + 1 < size;
+
+        //若存在获取child view
+        FoldableItemLayout firstLayout = isHasFirst ? getLayoutForItem(firstVisiblePosition) : null;
+        FoldableItemLayout secondLayout = isHasSecond ? getLayoutForItem(firstVisiblePosition + 1) : null;
+
+        if (isHasFirst) {
+        	//做翻转处理
+            firstLayout.setFoldRotation(localRotation);
+            onFoldRotationChanged(firstLayout, firstVisiblePosition);
+        }
+
+        if (isHasSecond) {
+        	//做翻转处理
+            secondLayout.setFoldRotation(localRotation - 180);
+            onFoldRotationChanged(secondLayout, firstVisiblePosition + 1);
+        }
+
+        //不再显示的child view恢复到平铺状态，这样它的翻转缓存bitmap才能被释放
+        resetHiddenLayout(mFirstLayout, firstLayout, secondLayout);
+        resetHiddenLayout(mSecondLayout, firstLayout, secondLayout);
+
+        updateRotationVelocity(position, localRotation);
+        updateDrawQuality(localRotation);
+        schedulePrefetch();
+
+        boolean isReversedOrder = localRotation <= 90;
+        //这个判断算是一个较复杂的计算和巧妙的技巧得出的，解释起来较费劲，可细细品读
+        //基本思路是：哪个child view 要做翻转，就把谁放在上面
+        if (isReversedOrder) {
+            mFirstLayout = secondLayout;
+            mSecondLayout = firstLayout;
+        } else {
+            mFirstLayout = firstLayout;
+            mSecondLayout = secondLayout;
+        }
+
+        //新创建的页或翻转缓存可能超出了内存上限
+        trimToMemoryBudget();
+
+        //翻转过程中的回调
+        if (mFoldRotationListener != null) mFoldRotationListener.onFoldRotation(getFoldRotation(), isFromUser);
+        if (mFoldPositionListener != null) mFoldPositionListener.onFoldPosition(position, localRotation, isFromUser);
+
+        // when hardware acceleration is enabled view may not be invalidated and redrawn, but we need it
+        invalidateFold(position, localRotation, firstLayout, secondLayout);
+    }
+
+    /**
+     * 只invalidate翻转角度变化影响到的区域：同一页内翻转时只有正在翻转的那一半会变化，
+     * 翻到别的页或者数据变化时invalidate整个view
+     */
+    private void invalidateFold(int position, float rotation, FoldableItemLayout first, FoldableItemLayout second) {
+        boolean isSamePage = position == mLastInvalidatePosition && rotation != mLastInvalidateRotation;
+        int halves = getChangedHalf(rotation) | getChangedHalf(mLastInvalidateRotation);
+        mLastInvalidatePosition = position;
+        mLastInvalidateRotation = rotation;
+
+        //折叠线不在中间时不好判断，直接invalidate整个view
+        boolean isRolling = (first != null && first.getRollingDistance() != 0)
+                || (second != null && second.getRollingDistance() != 0);
+        if (!isSamePage || isRolling) {
+            invalidate();
+            return;
+        }
+
+        //上下各多留一个像素 避免折叠线的取整误差
+        int center = getHeight() / 2;
+        int top = (halves & HALF_TOP) != 0 ? 0 : center - 1;
+        int bottom = (halves & HALF_BOTTOM) != 0 ? getHeight() : center + 1;
+        invalidate(0, top, getWidth(), bottom);
+    }
+
+    /**
+     * 在当前页翻转rotation度时正在变化的那一半：(0,90)时是当前页的下半部分在翻转，[90,180)时是下一页的上半部分在翻转
+     */
+    private static int getChangedHalf(float rotation) {
+        if (rotation == 0) return 0;
+        return rotation < 90 ? HALF_BOTTOM : HALF_TOP;
+    }
+
+    private void resetHiddenLayout(FoldableItemLayout layout, FoldableItemLayout first, FoldableItemLayout second) {
+        if (layout != null && layout != first && layout != second) layout.setFoldRotation(0);
+    }
+
+    /**
+     * 子类可在这处理翻转的状态
+     * @param layout
+     * @param position
+     */
+    protected void onFoldRotationChanged(FoldableItemLayout layout, int position) {
+
+    }
+
+    /**
+     * 整个翻转角度，页数很多时精度不够，请使用{@link #getFoldPosition()}和{@link #getFoldLocalRotation()}
+     */
+    public float getFoldRotation() {
+        return (float) (mFoldPosition * 180.0 + mFoldLocalRotation);
+    }
+
+    /**
+     * 当前正在翻的页
+     */
+    public int getFoldPosition() {
+        return mFoldPosition;
+    }
+
+    /**
+     * 在当前页已经翻转的角度 [0,180)
+     */
+    public float getFoldLocalRotation() {
+        return mFoldLocalRotation;
+    }
+
+    /**
+     * 得到一个child view
+     * @param position
+     * @return
+     */
+    private FoldableItemLayout getLayoutForItem(int position) {
+        int slot = mLayoutWindow.getSlot(position);
+        boolean isSkipBinding = isSkipBinding(position);
+        //当前已存在此child view 直接返回
+        if (mLayoutWindow.getPositionAt(slot) == position) {
+            if (mLayoutWindow.isPrefetchedAt(slot)) {
+                mLayoutWindow.setPrefetchedAt(slot, false);
+                mPrefetchHitCount++;
+            }
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(slot);
+            if (mLayoutWindow.isStaleAt(slot)) {
+                //数据变化后还没重新绑定，原来的item view作为convertView传给adapter 重新绑定的代价很小
+                recycleItemView(layout);
+                bindItemView(layout, position, isSkipBinding);
+                mLayoutWindow.setPlaceholderAt(slot, isSkipBinding);
+                mLayoutWindow.setStaleAt(slot, false);
+                //正在翻转的页重新绑定后翻转缓存会自动更新，没在翻转的页旧的翻转缓存已经没用了
+                layout.trimCache();
+            } else if (mLayoutWindow.isPlaceholderAt(slot) && !isSkipBinding) {
+                //快速翻过时只绑定了占位页，现在停下来了 完整绑定
+                recycleItemView(layout);
+                bindItemView(layout, position, false);
+                mLayoutWindow.setPlaceholderAt(slot, false);
+            }
+        } else {
+            createLayoutForItem(position, isSkipBinding);
+        }
+
+        mLayoutWindow.setLastShownAt(slot, ++mShowCounter);
+        return mLayoutWindow.getLayoutAt(slot);
+    }
+
+    /**
+     * fling动画翻过这一页的时间太短时不完整绑定，动画的目标页和它前后的页除外
+     * @param position
+     */
+    private boolean isSkipBinding(int position) {
+        if (!isFastFling()) return false;
+        return Math.abs((long) position - mAnimationPosition) > 1;
+    }
+
+    //fling动画正在快速翻过多页
+    private boolean isFastFling() {
+        return mAnimator.isRunning()
+                && Math.abs(mAnimator.getVelocity()) * SKIP_BINDING_PAGE_DURATION / 1000f >= 180f;
+    }
+
+    /**
+     * 创建一个child view并绑定数据，会替换掉窗口中占用同一位置的child view
+     * @param position
+     * @param isPlaceholder 为true时只绑定占位页
+     * @return
+     */
+    private FoldableItemLayout createLayoutForItem(int position, boolean isPlaceholder) {
+        int slot = mLayoutWindow.getSlot(position);
+        FoldableItemLayout layout = mLayoutWindow.getLayoutAt(slot);
+
+        //占用这个位置的页和position相差整个窗口的大小，一定已经不在当前页附近了 直接复用
+        if (layout != null) {
+            int oldPosition = mLayoutWindow.getPositionAt(slot);
+            if (oldPosition >= 0) cancelItemLoad(oldPosition);
+            recycleItemView(layout); // clearing old data
+        } else {
+            //这个位置空着 先用其他位置上没有绑定数据的child view(例如freeAllLayouts之后留在窗口中的)
+            layout = takeFreeLayout();
+        }
+
+        //若还没找到有效child view 创建一个
+        if (layout == null) {
+            // if still no suited layout - create it
+            layout = new FoldableItemLayout(getContext());
+            layout.setFoldShading(mFoldShading);
+            layout.setRenderScale(getCurrentRenderScale());
+            layout.setLowQualityEnabled(mIsLowQuality);
+            layout.setBitmapPool(mBitmapPool);
+            layout.setCacheReleaseDelay(mCacheReleaseDelay);
+            layout.setSnapshotEnabled(mIsSnapshotEnabled);
+            layout.setRgb565CacheEnabled(mIsRgb565CacheEnabled);
+            addView(layout, PARAMS);
+        }
+
+        //创建完毕 绑定数据源
+        bindItemView(layout, position, isPlaceholder);
+
+        //放入窗口中管理
+        mLayoutWindow.setLayoutAt(slot, layout);
+        mLayoutWindow.bind(slot, position);
+        mLayoutWindow.setPlaceholderAt(slot, isPlaceholder);
+        mLayoutWindow.setItemIdAt(slot, mAdapter.getItemId(position));
+        mLayoutWindow.setLastShownAt(slot, ++mShowCounter);
+
+        return layout;
+    }
+
+    /**
+     * 从窗口中取出一个没有绑定数据的child view
+     * @return 没有时返回null
+     */
+    private FoldableItemLayout takeFreeLayout() {
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout != null && mLayoutWindow.getPositionAt(i) < 0) {
+                mLayoutWindow.setLayoutAt(i, null);
+                return layout;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 设置所有child view和它们的翻转缓存最多占用多少内存，超出时移除最久没显示过的页，当前显示的二页不会被移除。
+     * 翻转缓存按实际bitmap的大小计算，每页view本身的内存按一屏ARGB_8888的bitmap估算
+     * @param bytes 0表示不限制
+     */
+    public void setMemoryBudget(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("Memory budget should be >= 0");
+        mMemoryBudget = bytes;
+        trimToMemoryBudget();
+    }
+
+    public long getMemoryBudget() {
+        return mMemoryBudget;
+    }
+
+    /**
+     * 当前所有child view和翻转缓存估算占用的字节数
+     */
+    public long getMemoryUsage() {
+        long size = 0;
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            size += getLayoutMemoryUsage(i);
+        }
+        return size;
+    }
+
+    private long getLayoutMemoryUsage(int slot) {
+        FoldableItemLayout layout = mLayoutWindow.getLayoutAt(slot);
+        if (layout == null) return 0;
+        long size = layout.getCacheByteCount();
+        if (mLayoutWindow.getPositionAt(slot) >= 0) {
+            size += (long) layout.getWidth() * layout.getHeight() * PAGE_BYTES_PER_PIXEL;
+        }
+        return size;
+    }
+
+    /**
+     * 超出内存上限时 依次移除最久没显示过的页
+     */
+    private void trimToMemoryBudget() {
+        if (mMemoryBudget == 0) return;
+
+        long size = getMemoryUsage();
+        while (size > mMemoryBudget) {
+            int slot = findLeastRecentlyShownSlot();
+            if (slot < 0) break;
+            size -= getLayoutMemoryUsage(slot);
+            removeLayoutAt(slot);
+        }
+    }
+
+    /**
+     * 找到最久没显示过的页，不包括当前显示的二页
+     * @return 没有可以移除的页时返回-1
+     */
+    private int findLeastRecentlyShownSlot() {
+        int result = -1;
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout == null || layout == mFirstLayout || layout == mSecondLayout) continue;
+            if (result < 0 || mLayoutWindow.getLastShownAt(i) < mLayoutWindow.getLastShownAt(result)) result = i;
+        }
+        return result;
+    }
+
+    /**
+     * 移除窗口中的一页，它的child view和翻转缓存也会被释放
+     * @param slot
+     */
+    private void removeLayoutAt(int slot) {
+        FoldableItemLayout layout = mLayoutWindow.getLayoutAt(slot);
+        int position = mLayoutWindow.getPositionAt(slot);
+        if (position >= 0) cancelItemLoad(position);
+        recycleItemView(layout);
+
+        mLayoutWindow.unbind(slot);
+        mLayoutWindow.setLayoutAt(slot, null);
+        removeView(layout); // releasing fold cache
+    }
+
+    /**
+     * 只保留当前显示的二页，并释放它们没在翻转时的翻转缓存和回收的item view，复用池只保留四分之一。
+     * 收到onTrimMemory或onLowMemory时会自动调用
+     */
+    public void trimMemory() {
+        trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+    }
+
+    /**
+     * 只释放这个列表自己的child view和缓存，复用池可能还有别的view在用，按内存紧张的程度只回收一部分，
+     * 进程快要被杀掉(TRIM_MEMORY_COMPLETE)时才全部回收
+     * @param level onTrimMemory的level
+     */
+    private void trimMemory(int level) {
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout == null) continue;
+            if (layout == mFirstLayout || layout == mSecondLayout) {
+                layout.trimCache();
+            } else {
+                removeLayoutAt(i);
+            }
+        }
+        mRecycleBin.clear();
+
+        long poolSize = mBitmapPool.getSize();
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+            mBitmapPool.clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            mBitmapPool.trimToSize(poolSize / 4);
+        } else {
+            mBitmapPool.trimToSize(poolSize / 2);
+        }
+    }
+
+    /**
+     * 从adapter获取position对应的item view放到child view中，优先复用同类型回收的item view
+     * @param layout
+     * @param position
+     * @param isPlaceholder 为true时只绑定FoldableAdapter的占位页，没有占位页时留空
+     */
+    private void bindItemView(FoldableItemLayout layout, int position, boolean isPlaceholder) {
+        if (isPlaceholder) {
+            if (!(mAdapter instanceof FoldableAdapter)) return;
+            FoldableAdapter adapter = (FoldableAdapter) mAdapter;
+            int viewType = adapter.getViewTypeCount();
+            View convertView = mRecycleBin.getScrapView(viewType);
+            View view = adapter.getPlaceholderView(position, convertView, layout.getBaseLayout());
+            if (view != null) {
+                addItemView(layout, view, convertView, viewType);
+            } else if (convertView != null) {
+                mRecycleBin.addScrapView(convertView, viewType);
+            }
+            return;
+        }
+
+        //AsyncFoldableAdapter先显示占位页，数据准备好后再重新绑定
+        if (mAdapter instanceof AsyncFoldableAdapter) {
+            AsyncFoldableAdapter<?> adapter = (AsyncFoldableAdapter<?>) mAdapter;
+            int viewType = adapter.getViewTypeCount();
+            View convertView = mRecycleBin.getScrapView(viewType);
+            View view = adapter.getPlaceholderView(position, convertView, layout.getBaseLayout());
+            addItemView(layout, view, convertView, viewType);
+
+            loadItemAsync(adapter, position);
+            return;
+        }
+
+        int viewType = mAdapter.getItemViewType(position);
+        View convertView = mRecycleBin.getScrapView(viewType);
+        View view = mAdapter.getView(position, convertView, layout.getBaseLayout());
+        addItemView(layout, view, convertView, viewType);
+    }
+
+    /**
+     * 把adapter返回的item view放到child view中
+     * @param layout
+     * @param view
+     * @param convertView 传给adapter的可复用view
+     * @param viewType
+     */
+    private void addItemView(FoldableItemLayout layout, View view, View convertView, int viewType) {
+        //adapter没有使用convertView时放回去，返回的view如果还在回收列表中也要取出来
+        if (convertView != null && view != convertView) mRecycleBin.addScrapView(convertView, viewType);
+        mRecycleBin.removeScrapView(view);
+
+        //用LayoutParams记录item view的类型，回收时数据可能已经变了，不能再用position去查
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        ItemLayoutParams itemParams = params instanceof ItemLayoutParams
+                ? (ItemLayoutParams) params : new ItemLayoutParams();
+        itemParams.viewType = viewType;
+        layout.getBaseLayout().addView(view, itemParams);
+    }
+
+    /**
+     * 移除child view中的item view并回收
+     * @param layout
+     */
+    private void recycleItemView(FoldableItemLayout layout) {
+        ViewGroup baseLayout = layout.getBaseLayout();
+        if (baseLayout.getChildCount() == 0) return;
+
+        View view = baseLayout.getChildAt(0);
+        baseLayout.removeAllViews();
+
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        if (params instanceof ItemLayoutParams) {
+            mRecycleBin.addScrapView(view, ((ItemLayoutParams) params).viewType);
+        }
+    }
+
+    /**
+     * 释放所有child view
+     */
+    private void freeAllLayouts() {
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            FoldableItemLayout layout = mLayoutWindow.getLayoutAt(i);
+            if (layout != null) recycleItemView(layout);
+            //child view留在窗口中 下次直接复用
+            mLayoutWindow.unbind(i);
+        }
+
+        //已经不需要的数据不用再准备了
+        cancelAllItemLoads();
+    }
+
+    /**
+     * 离开窗口时取消所有还在准备的数据，记下这些页，重新显示时再重新准备
+     */
+    private void cancelItemLoadsOnDetach() {
+        for (int i = 0; i < mLoadTasks.size(); i++) {
+            int position = mLoadTasks.keyAt(i);
+            int slot = mLayoutWindow.getSlot(position);
+            if (mLayoutWindow.getPositionAt(slot) == position) mLayoutWindow.setLoadCancelledAt(slot, true);
+        }
+        cancelAllItemLoads();
+    }
+
+    /**
+     * 重新显示时，离开窗口时没准备完数据的页重新开始准备，占位页一直保留着不需要重新绑定
+     */
+    private void restartItemLoads() {
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            if (!mLayoutWindow.isLoadCancelledAt(i)) continue;
+            mLayoutWindow.setLoadCancelledAt(i, false);
+
+            //数据变化后过期的页显示时会重新绑定，到时再准备
+            int position = mLayoutWindow.getPositionAt(i);
+            if (position >= 0 && !mLayoutWindow.isStaleAt(i) && mAdapter instanceof AsyncFoldableAdapter) {
+                loadItemAsync((AsyncFoldableAdapter<?>) mAdapter, position);
+            }
+        }
+    }
+
+    private void cancelAllItemLoads() {
+        for (int i = 0; i < mLoadTasks.size(); i++) {
+            mLoadTasks.valueAt(i).cancel();
+        }
+        mLoadTasks.clear();
+    }
+
+    /**
+     * 在后台准备position这一页的数据
+     */
+    private <T> void loadItemAsync(AsyncFoldableAdapter<T> adapter, int position) {
+        cancelItemLoad(position);
+
+        ExecutorService executor = mLoadExecutor == null ? getDefaultLoadExecutor() : mLoadExecutor;
+        LoadItemTask<T> task = new LoadItemTask<T>(adapter, position);
+        mLoadTasks.put(position, task);
+        task.mFuture = executor.submit(task);
+    }
+
+    private void cancelItemLoad(int position) {
+        LoadItemTask<?> task = mLoadTasks.get(position);
+        if (task != null) {
+            task.cancel();
+            mLoadTasks.remove(position);
+        }
+    }
+
+    /**
+     * 数据准备好之后回到主线程调用，用准备好的数据重新绑定这一页
+     */
+    private <T> void onItemLoaded(LoadItemTask<T> task) {
+        //这一页已经被翻走或adapter数据已经变了
+        if (mLoadTasks.get(task.mPosition) != task) return;
+        mLoadTasks.remove(task.mPosition);
+
+        FoldableItemLayout layout = mLayoutWindow.get(task.mPosition);
+        if (layout == null || mAdapter != task.mItemAdapter) return;
+
+        recycleItemView(layout);
+
+        int viewType = task.mItemAdapter.getItemViewType(task.mPosition);
+        View convertView = mRecycleBin.getScrapView(viewType);
+        View view = task.mItemAdapter.getView(task.mPosition, task.mData, convertView, layout.getBaseLayout());
+        addItemView(layout, view, convertView, viewType);
+    }
+
+    private static synchronized ExecutorService getDefaultLoadExecutor() {
+        if (sDefaultLoadExecutor == null) {
+            sDefaultLoadExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "FoldableListLayout-loader");
+                }
+            });
+        }
+        return sDefaultLoadExecutor;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateBitmapPoolReservation();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        schedulePrefetch();
+        updateBitmapPoolReservation();
+        restartItemLoads();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            if (mComponentCallbacks == null) mComponentCallbacks = new TrimMemoryCallbacks();
+            getContext().getApplicationContext().registerComponentCallbacks(mComponentCallbacks);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        flushTouchRotation();
+        //离开窗口后准备好的数据不再绑定，重新显示时再重新准备
+        cancelItemLoadsOnDetach();
+        //这时getWindowToken()还不是null，直接减掉在复用池上限中的份额
+        mBitmapPool.adjustMaxSize(-mBitmapPoolReservation);
+        mBitmapPoolReservation = 0;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH && mComponentCallbacks != null) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(mComponentCallbacks);
+        }
+        if (mIsPrefetchScheduled) {
+            mIsPrefetchScheduled = false;
+            Looper.myQueue().removeIdleHandler(mPrefetchHandler);
+        }
+    }
+
+    /**
+     * 在主线程空闲时预加载
+     */
+    private void schedulePrefetch() {
+        if (mIsPrefetchScheduled || mPrefetchDepth == 0 || getCount() == 0 || getWindowToken() == null) return;
+        mIsPrefetchScheduled = true;
+        Looper.myQueue().addIdleHandler(mPrefetchHandler);
+    }
+
+    /**
+     * 找到下一个需要预加载的页，越靠近当前页越优先
+     * @return 没有需要预加载的页时返回-1
+     */
+    private int findPrefetchPosition() {
+        //已经超出内存上限了 不再预加载
+        if (mMemoryBudget > 0 && getMemoryUsage() >= mMemoryBudget) return -1;
+        //快速翻过多页时预加载的页很快会被翻走，停下后再预加载
+        if (isFastFling()) return -1;
+
+        int first = mFoldPosition;
+        int last = Math.min(first + 1, getCount() - 1);
+
+        //根据翻转的速度决定前进方向上预加载多少页，没在翻转时前后各预加载一页
+        float speed = getRotationSpeed();
+        int ahead, behind;
+        if (speed < PREFETCH_MIN_ROTATION_SPEED) {
+            ahead = behind = 1;
+        } else {
+            int pages = 1 + (int) (speed * PREFETCH_LOOKAHEAD_TIME / 180f);
+            ahead = mRotationVelocity > 0 ? pages : 0;
+            behind = mRotationVelocity < 0 ? pages : 0;
+        }
+        ahead = Math.min(ahead, mPrefetchDepth);
+        behind = Math.min(behind, mPrefetchDepth);
+
+        for (int i = 1; i <= Math.max(ahead, behind); i++) {
+            if (i <= ahead && last + i < getCount() && !isItemBound(last + i)) return last + i;
+            if (i <= behind && first - i >= 0 && !isItemBound(first - i)) return first - i;
+        }
+        return -1;
+    }
+
+    //position这一页已经用最新的数据完整绑定了
+    private boolean isItemBound(int position) {
+        int slot = mLayoutWindow.getSlot(position);
+        return mLayoutWindow.get(position) != null
+                && !mLayoutWindow.isPlaceholderAt(slot) && !mLayoutWindow.isStaleAt(slot);
+    }
+
+    /**
+     * 预加载一页：创建child view、绑定数据并布局 预加载的页都在窗口内，不会替换掉当前页附近的child view
+     * @param position
+     */
+    private void prefetchItem(int position) {
+        FoldableItemLayout layout = createLayoutForItem(position, false);
+
+        //提前布局 翻到这一页时不用再measure和layout
+        int width = getWidth();
+        int height = getHeight();
+        if (width > 0 && height > 0) {
+            layout.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+            layout.layout(0, 0, width, height);
+        }
+
+        mLayoutWindow.setPrefetchedAt(mLayoutWindow.getSlot(position), true);
+        mPrefetchCount++;
+    }
+
+    //每次空闲只预加载一页，避免占用太长时间影响下一帧
+    private final MessageQueue.IdleHandler mPrefetchHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            int position = mAdapter == null || mPrefetchDepth == 0 ? -1 : findPrefetchPosition();
+            if (position < 0) {
+                mIsPrefetchScheduled = false;
+                return false;
+            }
+            prefetchItem(position);
+            return true;
+        }
+    };
+
+    /**
+     * 滚动到上一页或下一页
+     * @param index
+     */
+    public void scrollToPosition(int index) {
+        //动画中途改变目标时保持当前的速度
+        scrollToPosition(index, mAnimator.isRunning() ? mAnimator.getVelocity() : 0f);
+    }
+
+    /**
+     * 滚动到index这一页
+     * @param index
+     * @param velocity 开始时翻转的速度 角度/秒，只有弹簧动画使用
+     */
+    private void scrollToPosition(int index, float velocity) {
+        //从跳转的目标页开始滚动
+        if (mJumpFromLayout != null) setFoldPosition(mFoldPosition, mFoldLocalRotation, false);
+
+        index = Math.max(0, Math.min(index, getCount() - 1));
+
+        //动画的值是相对目标页的翻转角度，越接近目标页精度越高，最后正好停在0
+        mAnimationPosition = index;
+        float current = ((long) mFoldPosition - index) * 180f + mFoldLocalRotation;
+
+        if (mIsSpringEnabled) {
+            mAnimator.springTo(current, 0f, velocity);
+        } else {
+            //根据剩余需要翻转的角度计算动画的持续时间
+            long duration = (long) Math.abs(ANIMATION_DURATION_PER_ITEM * current / 180f);
+            //翻过多页时按开始的速度匀减速到目标位置，不再每页都用固定的时长：
+            //DecelerateInterpolator开始的斜率是2，时长为2*角度/速度时开始的速度正好是松手时的速度
+            if (Math.abs(current) > 180f && velocity != 0) {
+                duration = Math.min(duration, (long) Math.abs(2000f * current / velocity));
+                mAnimator.animateTo(current, 0f, duration, mFlingInterpolator);
+            } else {
+                mAnimator.animateTo(current, 0f, duration);
+            }
+        }
+    }
+
+    /**
+     * 直接跳到index这一页，不管相隔多少页都只做一次固定时长的翻转：
+     * 只绑定目标页(停下后再绑定它前后的页)，窗口中其他的页都回收掉，中间的页不会绑定
+     * <p/>
+     * 和当前页相邻时与{@link #scrollToPosition(int)}相同
+     * @param index
+     */
+    public void jumpToPosition(int index) {
+        int count = getCount();
+        if (count == 0) return;
+        index = Math.max(0, Math.min(index, count - 1));
+
+        cancelTouchRotation();
+        mAnimator.cancel();
+        endJump();
+
+        int current = mFoldLocalRotation >= 90 ? mFoldPosition + 1 : mFoldPosition;
+        if (Math.abs(index - current) <= 1) {
+            scrollToPosition(index, 0f);
+            return;
+        }
+
+        //当前页移出窗口单独保存，过渡结束前一直显示它
+        FoldableItemLayout fromLayout = getLayoutForItem(current);
+        int slot = mLayoutWindow.getSlot(current);
+        mLayoutWindow.setLayoutAt(slot, null);
+        mLayoutWindow.unbind(slot);
+        if (mFirstLayout != null && mFirstLayout != fromLayout) mFirstLayout.setFoldRotation(0);
+        if (mSecondLayout != null && mSecondLayout != fromLayout) mSecondLayout.setFoldRotation(0);
+
+        //窗口中其他的页都离目标页太远了 全部回收
+        freeAllLayouts();
+
+        mJumpFromLayout = fromLayout;
+        mJumpFromPosition = current;
+        mJumpPosition = index;
+        //逻辑上已经在目标页了，过渡期间拖动或滚动都从目标页开始
+        mFoldPosition = index;
+        mFoldLocalRotation = 0;
+        getLayoutForItem(index);
+        setJumpRotation(0f);
+
+        mAnimator.animateTo(0f, 180f, ANIMATION_DURATION_PER_ITEM);
+    }
+
+    /**
+     * 跳转的过渡：把原来的页和目标页当成相邻的二页来翻转
+     * @param rotation 0到180
+     */
+    private void setJumpRotation(float rotation) {
+        FoldableItemLayout toLayout = getLayoutForItem(mJumpPosition);
+        boolean isForward = mJumpPosition > mJumpFromPosition;
+
+        float localRotation = isForward ? rotation : 180f - rotation;
+        FoldableItemLayout firstLayout = isForward ? mJumpFromLayout : toLayout;
+        FoldableItemLayout secondLayout = isForward ? toLayout : mJumpFromLayout;
+        firstLayout.setFoldRotation(localRotation);
+        secondLayout.setFoldRotation(localRotation - 180);
+
+        //和setFoldRotation一样 要做翻转的放在上面
+        if (localRotation <= 90) {
+            mFirstLayout = secondLayout;
+            mSecondLayout = firstLayout;
+        } else {
+            mFirstLayout = firstLayout;
+            mSecondLayout = secondLayout;
+        }
+
+        schedulePrefetch();
+        invalidate();
+    }
+
+    /**
+     * 结束跳转的过渡，原来的页回收后放回窗口中空着的地方
+     */
+    private void endJump() {
+        FoldableItemLayout layout = mJumpFromLayout;
+        if (layout == null) return;
+        mJumpFromLayout = null;
+
+        recycleItemView(layout);
+        layout.setFoldRotation(0);
+
+        for (int i = 0; i < mLayoutWindow.getCapacity(); i++) {
+            if (mLayoutWindow.getLayoutAt(i) == null) {
+                mLayoutWindow.setLayoutAt(i, layout);
+                return;
+            }
+        }
+        removeView(layout);
+    }
+
+    //翻页动画的每一帧
+    private final FoldAnimator.Listener mAnimatorListener = new FoldAnimator.Listener() {
+        @Override
+        public void onFoldAnimationUpdate(float value) {
+            if (mJumpFromLayout != null) {
+                setJumpRotation(value);
+            } else {
+                setFoldPosition(mAnimationPosition, value, false);
+            }
+        }
+
+        @Override
+        public void onFoldAnimationEnd() {
+            //跳转的过渡结束 显示目标页
+            if (mJumpFromLayout != null) setFoldPosition(mFoldPosition, mFoldLocalRotation, false);
+        }
+    };
+
+    /**
+     * 根据当前位置的角度 判断滚动停留在当前页还是滚动到下一页
+     */
+    protected void scrollToNearestPosition() {
+        //在当前页的翻转角度分成二个区间[0,90)(90,180)，[0,90)时停留在当前页，[90,180)时滚到下一页
+        scrollToPosition(mFoldLocalRotation >= 90 ? mFoldPosition + 1 : mFoldPosition);
+    }
+
+    /**
+     * 触摸事件处理
+     * @param event
+     * @return
+     */
+    private boolean processTouch(MotionEvent event) {
+    	//同一个事件可能先经过onInterceptTouchEvent再经过onTouchEvent，每次分发只处理一次
+        if (mIsEventProcessed) return mLastEventResult;
+        mIsEventProcessed = true;
+
+        mLastEventResult = getCount() > 0 && handleTouch(event);
+        return mLastEventResult;
+    }
+
+    private boolean handleTouch(MotionEvent event) {
+        //当整个view Y线上发生位移时，需要矫正Y值
+        float offsetY = getTranslationY();
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mTouchTracker.onDown(event, offsetY);
+                mPredictionTargetTime = 0;
+                return false;
+
+            case MotionEvent.ACTION_POINTER_UP:
+                mTouchTracker.onPointerUp(event, offsetY);
+                return mIsScrollDetected;
+
+            case MotionEvent.ACTION_MOVE:
+                return mTouchTracker.onMove(event, offsetY) ? onScroll(mTouchTracker.getDistance()) : mIsScrollDetected;
+
+            case MotionEvent.ACTION_UP:
+                //up事件触发时，需要对正在翻转的view做复位处理,是停留在当前页还是滚动到下一页
+                if (!mIsScrollDetected) return false;
+
+                mTouchTracker.onMove(event, offsetY);
+                onScroll(mTouchTracker.getDistance());
+                mIsScrollDetected = false;
+                //fling要从最后一次拖动的位置开始
+                flushTouchRotation();
+                float velocity = mTouchTracker.getVelocity();
+                if (Math.abs(velocity) < mMinFlingVelocity || !onFling(velocity)) scrollToNearestPosition();
+                return true;
+
+            case MotionEvent.ACTION_CANCEL:
+                if (mIsScrollDetected) {
+                    mIsScrollDetected = false;
+                    flushTouchRotation();
+                    scrollToNearestPosition();
+                }
+                return false;
+
+            default:
+                return mIsScrollDetected;
+        }
+    }
+
+    /**
+     * @deprecated 触摸事件已经不再经过GestureDetector，保留只是为了兼容，不会被自动调用
+     */
+    @Deprecated
+    @Override
+    public boolean onDown(MotionEvent event) {
+        return false;
+    }
+
+    /**
+     * @deprecated 触摸事件已经不再经过GestureDetector，保留只是为了兼容，不会被自动调用
+     */
+    @Deprecated
+    @Override
+    public void onShowPress(MotionEvent event) {
+        // NO-OP
+    }
+
+    /**
+     * @deprecated 触摸事件已经不再经过GestureDetector，保留只是为了兼容，不会被自动调用
+     */
+    @Deprecated
+    @Override
+    public boolean onSingleTapUp(MotionEvent event) {
+        return false;
+    }
+
+    /**
+     * @deprecated 触摸事件已经不再经过GestureDetector，保留只是为了兼容，不会被自动调用
+     */
+    @Deprecated
+    @Override
+    public void onLongPress(MotionEvent event) {
+        // NO-OP
+    }
+
+    /**
+     * @deprecated 触摸事件已经不再经过GestureDetector，保留只是为了兼容，不会被自动调用；
+     * 直接调用时和原来一样按e1到e2的拖动距离翻转
+     */
+    @Deprecated
+    @Override
+    public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+        return onScroll(e1.getY() - e2.getY());
+    }
+
+    /**
+     * @deprecated 触摸事件已经不再经过GestureDetector，保留只是为了兼容，不会被自动调用；
+     * 直接调用时和原来一样按velocityY翻到上一页或下一页
+     */
+    @Deprecated
+    @Override
+    public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
+        return onFling(velocityY);
+    }
+
+    @Override
+    public boolean onRequestSendAccessibilityEvent(View child, AccessibilityEvent event) {
+        return super.onRequestSendAccessibilityEvent(child, event);
+    }
+
+    /**
+     * 手指拖动时调用
+     * @param distance 从按下到现在的拖动距离，向上滑动distance是正数 向下滑动distance是负数
+     * @return 是否已经开始翻转
+     */
+    private boolean onScroll(float distance) {
+        //滚动触发 开始初始化一些变量
+        if (!mIsScrollDetected && Math.abs(distance) > mMinDistanceBeforeScroll) {
+            mIsScrollDetected = true;
+            mScrollStartPosition = mFoldPosition;
+            mScrollStartRotation = mFoldLocalRotation;
+            mScrollStartDistance = distance;
+        }
+
+        if (mIsScrollDetected) {
+            checkTouchPrediction();
+            //开始做翻转处理
+            requestTouchRotation(getScrollRotation(distance));
+        }
+
+        return mIsScrollDetected;
+    }
+
+    /**
+     * 拖动距离对应的翻转角度，相对开始拖动时的页，拖动半个view的高度翻转180度
+     * 不会超出第一页和最后一页
+     * @param distance
+     */
+    private float getScrollRotation(float distance) {
+        float rotation = mScrollStartRotation + (2 * (distance - mScrollStartDistance) / getHeight()) * 180f;
+        float min = -mScrollStartPosition * 180f;
+        float max = (Math.max(0, getCount() - 1) - mScrollStartPosition) * 180f;
+        return Math.min(Math.max(min, rotation), max);
+    }
+
+    /**
+     * 按手指最近的速度预测frameTimeNanos这一帧显示出来时的翻转角度
+     * @param rotation 最后一个触摸采样对应的角度
+     * @return 不需要预测时返回rotation
+     */
+    private float predictTouchRotation(float rotation, long frameTimeNanos) {
+        long lastTime = mTouchTracker.getLastTime();
+        long lead = frameTimeNanos / 1000000L + mTouchPredictionLatency - lastTime;
+        //手指已经停下了 或者没有可用的采样
+        if (lead <= 0 || lead > MAX_TOUCH_PREDICTION_TIME || getHeight() == 0) return rotation;
+
+        //速度是向下滑动为正，拖动距离是向上滑动为正
+        float distance = mTouchTracker.getDistance() - mTouchTracker.getVelocity() * lead / 1000f;
+        float predicted = getScrollRotation(distance);
+
+        mPredictedRotation = predicted;
+        mPredictionTargetTime = lastTime + lead;
+        return predicted;
+    }
+
+    /**
+     * 触摸采样已经到了上一次预测的时间点，统计预测的误差
+     */
+    private void checkTouchPrediction() {
+        if (mPredictionTargetTime == 0 || mTouchTracker.getLastTime() < mPredictionTargetTime) return;
+
+        float distance = mTouchTracker.getDistanceAt(mPredictionTargetTime);
+        mPredictionTargetTime = 0;
+        if (Float.isNaN(distance)) return;
+
+        float actual = getScrollRotation(distance);
+        float error = Math.abs(mPredictedRotation - actual);
+        mPredictionCount++;
+        mPredictionErrorSum += error;
+        if (error > mPredictionErrorMax) mPredictionErrorMax = error;
+    }
+
+    /**
+     * 拖动产生的翻转角度，合并到下一帧再更新
+     * @param rotation
+     */
+    private void requestTouchRotation(float rotation) {
+        if (!mIsTouchCoalescingEnabled || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN
+                || getWindowToken() == null) {
+            setFoldPosition(mScrollStartPosition, rotation, true);
+            return;
+        }
+
+        if (!mHasPendingTouchRotation) {
+            //和直接更新时一样，拖动一开始就停止当前的动画
+            mAnimator.cancel();
+            if (mTouchFrameCallback == null) mTouchFrameCallback = new TouchFrameCallback();
+            Choreographer.getInstance().postFrameCallback(mTouchFrameCallback);
+            mHasPendingTouchRotation = true;
+        }
+        mPendingTouchRotation = rotation;
+    }
+
+    /**
+     * 立即更新还没更新的拖动，手指抬起时要在计算fling之前调用
+     */
+    private void flushTouchRotation() {
+        if (!mHasPendingTouchRotation) return;
+        cancelTouchRotation();
+        setFoldPosition(mScrollStartPosition, mPendingTouchRotation, true);
+    }
+
+    private void cancelTouchRotation() {
+        if (!mHasPendingTouchRotation) return;
+        mHasPendingTouchRotation = false;
+        Choreographer.getInstance().removeFrameCallback(mTouchFrameCallback);
+    }
+
+    //系统内存不足时释放缓存
+    private class TrimMemoryCallbacks implements ComponentCallbacks2 {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) trimMemory(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            // NO-OP
+        }
+    }
+
+    //每一帧开始时把最后一次拖动的角度更新到view上
+    private class TouchFrameCallback implements Choreographer.FrameCallback {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mHasPendingTouchRotation) return;
+            mHasPendingTouchRotation = false;
+
+            float rotation = mPendingTouchRotation;
+            if (mIsTouchPredictionEnabled && mIsScrollDetected) {
+                rotation = predictTouchRotation(rotation, frameTimeNanos);
+            }
+            setFoldPosition(mScrollStartPosition, rotation, true);
+
+            //显示的是预测的位置，手指停下后不会再有新的采样，下一帧继续检查，超过预测时间后回到实际的位置
+            if (rotation != mPendingTouchRotation) {
+                Choreographer.getInstance().postFrameCallback(this);
+                mHasPendingTouchRotation = true;
+            }
+        }
+    }
+
+    /**
+     * 手指快速滑动后抬起时调用
+     * @param velocityY 抬起时的速度，向下滑动是正数
+     * @return 是否已经开始翻到上一页或下一页
+     */
+    private boolean onFling(float velocityY) {
+        if (mFoldLocalRotation == 0) return false;
+
+        int position = mFoldPosition;
+        //手指的速度换算成翻转的速度，向上滑动时角度增加
+        float velocity = getHeight() == 0 ? 0f : -velocityY * 2 / getHeight() * 180f;
+        //按摩擦力减速能翻过的页数(相对当前页)，至少翻一页，最多翻mMaxFlingPages页
+        float decayPages = (mFoldLocalRotation + mAnimator.getDecayDistance(velocity)) / 180f;
+
+        //也许你很疑惑，为什么是position而不是position-1呢，想深究这个的话，你可以深入理解在滚动过程中，rotation这个值的生成策略
+        //这里解释起来还是很费劲的
+        int target;
+        if (velocityY > 0) {
+            long pages = Math.max(1L - mMaxFlingPages, Math.min(0L, (long) Math.floor(decayPages)));
+            target = (int) Math.max(0L, position + pages);
+        } else {
+            long pages = Math.min(mMaxFlingPages, Math.max(1L, (long) Math.ceil(decayPages)));
+            target = (int) Math.min(Integer.MAX_VALUE, position + pages);
+        }
+        scrollToPosition(target, velocity);
+        return true;
+    }
+
+    //adapter用的监听函数
+    private DataSetObserver mDataObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            super.onChanged();
+            updateAdapterData();
+        }
+
+        @Override
         public void onInvalidated() {
             super.onInvalidated();
+            //数据已经无效了 item id也不能再用
+            freeAllLayouts();
             updateAdapterData();
         }
     };
 
+    /**
+     * 准备一页数据的任务：先在后台线程中调用loadItem，再post回主线程重新绑定
+     */
+    private class LoadItemTask<T> implements Runnable {
+
+        private final AsyncFoldableAdapter<T> mItemAdapter;
+        private final int mPosition;
+        private Future<?> mFuture;
+        private volatile boolean mIsCancelled;
+        private T mData;
+
+        private LoadItemTask(AsyncFoldableAdapter<T> adapter, int position) {
+            mItemAdapter = adapter;
+            mPosition = position;
+        }
+
+        @Override
+        public void run() {
+            if (mIsCancelled) return;
+            try {
+                mData = mItemAdapter.loadItem(mPosition);
+            } catch (RuntimeException e) {
+                //准备失败时保持占位页
+                Log.e("FoldableListLayout", "Failed to load item at position " + mPosition, e);
+                return;
+            }
+            if (!mIsCancelled) post(mOnLoaded);
+        }
+
+        private final Runnable mOnLoaded = new Runnable() {
+            @Override
+            public void run() {
+                onItemLoaded(LoadItemTask.this);
+            }
+        };
+
+        private void cancel() {
+            mIsCancelled = true;
+            if (mFuture != null) mFuture.cancel(false);
+            removeCallbacks(mOnLoaded);
+        }
+
+    }
+
+    /**
+     * 固定大小的环形窗口，保存当前页附近的child view：position对窗口大小取模就是它的位置，
+     * 查找、添加和替换都是O(1)的，也不需要分配对象。
+     * 窗口中连续的capacity个position一定占用不同的位置，所以只要窗口大小足够覆盖当前页附近的页，
+     * 新的页替换掉的一定是离当前页足够远的页
+     */
+    private static class LayoutWindow {
+
+        private final FoldableItemLayout[] mLayouts;
+        //每个位置绑定的position -1表示没有绑定数据
+        private final int[] mPositions;
+        //每个位置是否是预加载的，还没有被翻到过
+        private final boolean[] mPrefetched;
+        //每个位置最后一次显示的序号
+        private final long[] mLastShown;
+        //每个位置绑定时的item id，数据变化时用来判断这一页还在不在
+        private final long[] mItemIds;
+        //数据变化时每个位置的页要移到的新位置 -1表示要释放掉
+        private final int[] mTargetPositions;
+        //每个位置是否只绑定了占位页
+        private final boolean[] mPlaceholders;
+        //每个位置是否在数据变化后还没有重新绑定
+        private final boolean[] mStale;
+        //每个位置离开窗口时是否有没准备完的数据，重新显示时要重新开始准备
+        private final boolean[] mLoadCancelled;
+
+        private LayoutWindow(int capacity) {
+            mLayouts = new FoldableItemLayout[capacity];
+            mPositions = new int[capacity];
+            mPrefetched = new boolean[capacity];
+            mLastShown = new long[capacity];
+            mItemIds = new long[capacity];
+            mTargetPositions = new int[capacity];
+            mPlaceholders = new boolean[capacity];
+            mStale = new boolean[capacity];
+            mLoadCancelled = new boolean[capacity];
+            for (int i = 0; i < capacity; i++) {
+                mPositions[i] = -1;
+            }
+        }
+
+        private int getCapacity() {
+            return mLayouts.length;
+        }
+
+        private int getSlot(int position) {
+            return position % mLayouts.length;
+        }
+
+        /**
+         * @return position没有对应的child view时返回null
+         */
+        private FoldableItemLayout get(int position) {
+            if (position < 0) return null;
+            int slot = getSlot(position);
+            return mPositions[slot] == position ? mLayouts[slot] : null;
+        }
+
+        private FoldableItemLayout getLayoutAt(int slot) {
+            return mLayouts[slot];
+        }
+
+        private void setLayoutAt(int slot, FoldableItemLayout layout) {
+            mLayouts[slot] = layout;
+        }
+
+        private int getPositionAt(int slot) {
+            return mPositions[slot];
+        }
+
+        private boolean isPrefetchedAt(int slot) {
+            return mPrefetched[slot];
+        }
+
+        private void setPrefetchedAt(int slot, boolean isPrefetched) {
+            mPrefetched[slot] = isPrefetched;
+        }
+
+        private long getLastShownAt(int slot) {
+            return mLastShown[slot];
+        }
+
+        private void setLastShownAt(int slot, long counter) {
+            mLastShown[slot] = counter;
+        }
+
+        private long getItemIdAt(int slot) {
+            return mItemIds[slot];
+        }
+
+        private void setItemIdAt(int slot, long itemId) {
+            mItemIds[slot] = itemId;
+        }
+
+        private boolean isPlaceholderAt(int slot) {
+            return mPlaceholders[slot];
+        }
+
+        private void setPlaceholderAt(int slot, boolean isPlaceholder) {
+            mPlaceholders[slot] = isPlaceholder;
+        }
+
+        private boolean isLoadCancelledAt(int slot) {
+            return mLoadCancelled[slot];
+        }
+
+        private void setLoadCancelledAt(int slot, boolean isCancelled) {
+            mLoadCancelled[slot] = isCancelled;
+        }
+
+        private boolean isStaleAt(int slot) {
+            return mStale[slot];
+        }
+
+        private void setStaleAt(int slot, boolean isStale) {
+            mStale[slot] = isStale;
+        }
+
+        private int getTargetPositionAt(int slot) {
+            return mTargetPositions[slot];
+        }
+
+        private void setTargetPositionAt(int slot, int position) {
+            mTargetPositions[slot] = position;
+        }
+
+        private void bind(int slot, int position) {
+            mPositions[slot] = position;
+            mPrefetched[slot] = false;
+            mPlaceholders[slot] = false;
+            mStale[slot] = false;
+            mLoadCancelled[slot] = false;
+        }
+
+        private void unbind(int slot) {
+            mPositions[slot] = -1;
+            mPrefetched[slot] = false;
+            mPlaceholders[slot] = false;
+            mStale[slot] = false;
+            mLoadCancelled[slot] = false;
+        }
+
+    }
+
+    /**
+     * item view的LayoutParams，记录绑定时的getItemViewType
+     */
+    private static class ItemLayoutParams extends LayoutParams {
+
+        private int viewType;
+
+        private ItemLayoutParams() {
+            super(MATCH_PARENT, MATCH_PARENT);
+        }
+
+    }
+
+    /**
+     * 按getItemViewType分类保存回收的item view
+     */
+    private static class RecycleBin {
+
+        private ArrayList<View>[] mScrapViews;
+        //每种类型最多保存的item view数，和窗口能保存的页数一样
+        private int mMaxScrapViews;
+
+        private RecycleBin(int maxScrapViews) {
+            mMaxScrapViews = maxScrapViews;
+            setViewTypeCount(1);
+        }
+
+        /**
+         * 设置每种类型最多保存的item view数，多出来的丢掉
+         * @param max
+         */
+        private void setMaxScrapViews(int max) {
+            mMaxScrapViews = max;
+            for (ArrayList<View> scrap : mScrapViews) {
+                while (scrap.size() > max) scrap.remove(scrap.size() - 1);
+            }
+        }
+
+        /**
+         * 设置item view类型的数量，同时清空之前回收的item view
+         * @param count
+         */
+        @SuppressWarnings("unchecked")
+        private void setViewTypeCount(int count) {
+            if (count < 1) throw new IllegalArgumentException("Can't have a viewTypeCount < 1");
+            mScrapViews = new ArrayList[count];
+            for (int i = 0; i < count; i++) {
+                mScrapViews[i] = new ArrayList<View>(mMaxScrapViews);
+            }
+        }
+
+        private View getScrapView(int viewType) {
+            //类型为ITEM_VIEW_TYPE_IGNORE(负数)或超出范围的不复用
+            if (viewType < 0 || viewType >= mScrapViews.length) return null;
+            ArrayList<View> scrap = mScrapViews[viewType];
+            return scrap.isEmpty() ? null : scrap.remove(scrap.size() - 1);
+        }
+
+        private void addScrapView(View view, int viewType) {
+            if (viewType < 0 || viewType >= mScrapViews.length) return;
+            ArrayList<View> scrap = mScrapViews[viewType];
+            if (scrap.size() < mMaxScrapViews && !scrap.contains(view)) scrap.add(view);
+        }
+
+        private void removeScrapView(View view) {
+            for (ArrayList<View> scrap : mScrapViews) {
+                scrap.remove(view);
+            }
+        }
+
+        private void clear() {
+            for (ArrayList<View> scrap : mScrapViews) {
+                scrap.clear();
+            }
+        }
+
+    }
+
+    //FoldableAdapter局部更新用的监听函数
+    private FoldableAdapter.ItemObserver mItemObserver = new FoldableAdapter.ItemObserver() {
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            FoldableListLayout.this.onItemRangeChanged(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            onItemPositionsChanged(UPDATE_INSERT, positionStart, itemCount, 0);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            onItemPositionsChanged(UPDATE_REMOVE, positionStart, itemCount, 0);
+        }
+
+        @Override
+        public void onItemMoved(int fromPosition, int toPosition) {
+            onItemPositionsChanged(UPDATE_MOVE, fromPosition, 1, toPosition);
+        }
+    };
+
     public interface OnFoldRotationListener {
         void onFoldRotation(float rotation, boolean isFromUser);
     }
 
+    /**
+     * 翻转过程中的回调
+     */
+    public interface OnFoldPositionListener {
+        /**
+         * @param position 正在翻的页
+         * @param localRotation 在这一页已经翻转的角度 [0,180)
+         * @param isFromUser
+         */
+        void onFoldPosition(int position, float localRotation, boolean isFromUser);
+    }
+
 }
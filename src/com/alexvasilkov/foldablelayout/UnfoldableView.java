@@ -18,40 +18,40 @@ import android.widget.FrameLayout;
 @SuppressLint("NewApi")
 public class UnfoldableView extends FoldableListLayout {
 
-	//һհ׵view ĬDetails view
+	//一个空白的view 默认用来填充Details view区域
     private View mDefaultDetailsPlaceHolderView;
-    //һհ׵view Ĭcover view
+    //一个空白的view 默认用来填充cover view区域
     private View mDefaultCoverPlaceHolderView;
 
-    //ԭview
+    //保存着原来的view的引用
     private View mDetailsView, mCoverView;
-    //һview Details viewcover view
+    //一个的view 用来填充Details view和cover view区域
     private View mDetailsPlaceHolderView, mCoverPlaceHolderView;
-    //view ԭcoverViewĿת
+    //辅助view 添加原coverView进来，目的是用于做翻转动画
     private CoverHolderLayout mCoverHolderLayout;
 
-    //µĴʱԭview
+    //出现特殊下的处理，临时保存原来的view引用
     private View mScheduledCoverView, mScheduledDetailsView;
 
-    //ԭviewLayoutParams
+    //保存着原来的view的LayoutParams引用
     private ViewGroup.LayoutParams mDetailsViewParams, mCoverViewParams;
-    //ԭviewĿֵ
+    //保存着原来的view的宽、高值
     private int mDetailsViewParamWidth, mDetailsViewParamHeight, mCoverViewParamWidth, mCoverViewParamHeight;
-    //ԭviewĻϵĿʾΧ
+    //保存着原来的view的在屏幕上的可显示范围
     private Rect mCoverViewPosition, mDetailsViewPosition;
 
     private Adapter mAdapter;
 
     private float mLastFoldRotation;
-    //״̬Ķ
-    //Ƿչ
+    //几种状态的定义
+    //是否正在展开
     private boolean mIsUnfolding;
-    //Ƿ۵
+    //是否正在折叠
     private boolean mIsFoldingBack;
-    //ǷѾչ
+    //是否已经展开完毕
     private boolean mIsUnfolded;
 
-    //ת״̬صӿ
+    //翻转状态回调接口
     private OnFoldingListener mListener;
 
     public UnfoldableView(Context context) {
@@ -81,28 +81,28 @@ public class UnfoldableView extends FoldableListLayout {
     }
 
     /**
-     * detailsViewڲʼ
-     * Ҫ2£
-     * 1ԭdetailsView
-     * 2detailsViewƳdetailsViewһholder viewȥ
+     * 对detailsView做内部初始化
+     * 主要做2件事：
+     * 1、保存原detailsView数据
+     * 2、在detailsView父容器里移除detailsView，添加一个holder view进去
      */
     private void setDetailsViewInternal(View detailsView) {
-    	//ԭdetailsView
+    	//保存原detailsView的数据
         mDetailsView = detailsView;
         mDetailsViewParams = detailsView.getLayoutParams();
         mDetailsViewParamWidth = mDetailsViewParams.width;
         mDetailsViewParamHeight = mDetailsViewParams.height;
 
-        //ԭdetailsViewĻĿʾΧ
+        //保存原detailsView的在屏幕的可显示范围
         mDetailsViewPosition = getViewGlobalPosition(detailsView);
 
-        //һviewdetails view
+        //创建一个view用来填充details view区域
         mDetailsPlaceHolderView = createDetailsPlaceHolderView();
 
-        //ʵĿֵ
+        //设置真实的宽高值
         mDetailsViewParams.width = mDetailsViewPosition.width();
         mDetailsViewParams.height = mDetailsViewPosition.height();
-        //viewת detailsViewĸmDetailsPlaceHolderView滻detailsView
+        //view转换 在detailsView的父容器里，用mDetailsPlaceHolderView替换detailsView
         switchViews(detailsView, mDetailsPlaceHolderView, mDetailsViewParams);
     }
 
@@ -122,32 +122,32 @@ public class UnfoldableView extends FoldableListLayout {
     }
 
     /**
-     * CoverViewڲʼ
-     * Ҫ3£
-     * 1ԭCoverView
-     * 2CoverViewƳCoverViewһholder viewȥ
-     * 3ԭCoverViewӵcover holder layoutȥת
+     * 对CoverView做内部初始化
+     * 主要做3件事：
+     * 1、保存原CoverView数据
+     * 2、在CoverView父容器里移除CoverView，添加一个holder view进去
+     * 3、把原CoverView添加到cover holder layout中去，用于做翻转动画
      */
     private void setCoverViewInternal(View coverView) {
-        //ԭcoverView
+        //保存原coverView的数据
         mCoverView = coverView;
         mCoverViewParams = coverView.getLayoutParams();
         mCoverViewParamWidth = mCoverViewParams.width;
         mCoverViewParamHeight = mCoverViewParams.height;
 
-        //ԭcoverViewĻĿʾΧ
+        //保存原coverView的在屏幕的可显示范围
         mCoverViewPosition = getViewGlobalPosition(coverView);
 
-        //һviewcover view
+        //创建一个view用来填充cover view区域
         mCoverPlaceHolderView = createCoverPlaceHolderView();
 
-        //ʵĿֵ
+        //设置真实的宽高值
         mCoverViewParams.width = mCoverViewPosition.width();
         mCoverViewParams.height = mCoverViewPosition.height();
-        //viewת coverViewĸmCoverPlaceHolderView滻coverView
+        //view转换 在coverView的父容器里，用mCoverPlaceHolderView替换coverView
         switchViews(coverView, mCoverPlaceHolderView, mCoverViewParams);
 
-        //ԭcoverView view䵽cover holder layoutȥ(ת)
+        //把原coverView view填充到cover holder layout里去(用于做翻转动画用)
         mCoverHolderLayout.setView(coverView, mCoverViewPosition.width(), mCoverViewPosition.height());
     }
 
@@ -157,12 +157,12 @@ public class UnfoldableView extends FoldableListLayout {
         // freeing coverView so we can add it back to it's palce
         mCoverHolderLayout.clearView();
 
-        //ָԭcover viewԭĸ
+        //恢复原cover view到原来的父容器里
         mCoverViewParams.width = mCoverViewParamWidth;
         mCoverViewParams.height = mCoverViewParamHeight;
         switchViews(mCoverPlaceHolderView, mCoverView, mCoverViewParams);
 
-        //ԭcover view
+        //清楚对原cover view各个数据引用
         mCoverView = null;
         mCoverViewParams = null;
         mCoverViewPosition = null;
@@ -176,7 +176,7 @@ public class UnfoldableView extends FoldableListLayout {
     }
 
     /**
-     * Details view,าԶview
+     * 用来填充Details view区域,可子类覆盖自定义这个view
      * @return
      */
     protected View createDetailsPlaceHolderView() {
@@ -184,7 +184,7 @@ public class UnfoldableView extends FoldableListLayout {
     }
 
     /**
-     * cover view,าԶview
+     * 用来填充cover view区域,可子类覆盖自定义这个view
      * @return
      */
     protected View createCoverPlaceHolderView() {
@@ -192,14 +192,14 @@ public class UnfoldableView extends FoldableListLayout {
     }
 
     /**
-     * ݸviewչ
+     * 根据给定的view做展开动画
      * @param coverView
      * @param detailsView
      */
     public void unfold(View coverView, View detailsView) {
         if (mCoverView == coverView && mDetailsView == detailsView) return; // already in place
 
-        //cover or details viewֲһʱ⴦
+        //cover or details view出现不一致时，做特殊处理
         if ((mCoverView != null && mCoverView != coverView) || (mDetailsView != null && mDetailsView != detailsView)) {
             // cover or details view is differ - closing details and schedule reopening
             mScheduledDetailsView = detailsView;
@@ -208,26 +208,26 @@ public class UnfoldableView extends FoldableListLayout {
             return;
         }
 
-        //ΪʵַתҪcoverViewdetailsView
+        //为了实现翻转动画，需要对coverView和detailsView做处理
         setCoverViewInternal(coverView);
         setDetailsViewInternal(detailsView);
 
-        //ʼadpater
+        //初始化adpater
         setAdapter(mAdapter);
 
-        //ʼչ
+        //开始展开动画
         scrollToPosition(1);
     }
 
     /**
-     * ۵
+     * 做折叠动画
      */
     public void foldBack() {
         scrollToPosition(0);
     }
 
     /**
-     * ۵ϺĴ
+     * 折叠完毕后的处理
      */
     private void onFoldedBack() {
         // clearing all foldable views
@@ -261,14 +261,14 @@ public class UnfoldableView extends FoldableListLayout {
     }
 
     /**
-     * д˺ҪĿǴתеλƺͷת״̬ص
+     * 重写父类此函数，主要目的是处理翻转过程中的位移和翻转状态回调
      */
     @Override
-    public void setFoldRotation(float rotation, boolean isFromUser) {
-        super.setFoldRotation(rotation, isFromUser);
+    protected void setFoldPosition(int position, float localRotation, boolean isFromUser) {
+        super.setFoldPosition(position, localRotation, isFromUser);
         if (mCoverView == null || mDetailsView == null) return; // nothing we can do here
 
-        rotation = getFoldRotation(); // parent view will correctly keep rotation in bounds for us
+        float rotation = getFoldRotation(); // parent view will correctly keep rotation in bounds for us
 
         // translating from cover's position to details position
         float stage = rotation / 180; // from 0 = only cover view, to 1 - only details view
@@ -279,7 +279,7 @@ public class UnfoldableView extends FoldableListLayout {
         float fromY = mCoverViewPosition.top;
         float toY = mDetailsViewPosition.centerY();
 
-        //Щر fromXյ㡢toXǿʼ (1 - stage)ʾһʼƶfromXλãȻĻصtoX
+        //这里有些特别 fromX是终点、toX是开始点 (1 - stage)表示一开始就移动fromX位置，然后慢慢的回到toX
         setTranslationX((fromX - toX) * (1 - stage));
         setTranslationY((fromY - toY) * (1 - stage));
 
@@ -289,7 +289,7 @@ public class UnfoldableView extends FoldableListLayout {
 
         if (mListener != null) mListener.onFoldProgress(this, stage);
 
-        //ʾǰչ
+        //表示当前正在展开
         if (rotation > lastRotatation && !mIsUnfolding) {
             mIsUnfolding = true;
             mIsFoldingBack = false;
@@ -298,7 +298,7 @@ public class UnfoldableView extends FoldableListLayout {
             if (mListener != null) mListener.onUnfolding(this);
         }
 
-        //ʾǰ۵
+        //表示当前正在折叠
         if (rotation < lastRotatation && !mIsFoldingBack) {
             mIsUnfolding = false;
             mIsFoldingBack = true;
@@ -307,7 +307,7 @@ public class UnfoldableView extends FoldableListLayout {
             if (mListener != null) mListener.onFoldingBack(this);
         }
 
-        //ʾѾչ
+        //表示已经展开完毕
         if (rotation == 180 && !mIsUnfolded) {
             mIsUnfolding = false;
             mIsFoldingBack = false;
@@ -316,7 +316,7 @@ public class UnfoldableView extends FoldableListLayout {
             if (mListener != null) mListener.onUnfolded(this);
         }
 
-        //ʾ۵
+        //表示折叠完毕
         if (rotation == 0 && mIsFoldingBack) {
             mIsUnfolding = false;
             mIsFoldingBack = false;
@@ -337,12 +337,12 @@ public class UnfoldableView extends FoldableListLayout {
         float detailsW = mDetailsViewPosition.width();
 
         if (position == 0) { //cover view
-            // cover viewScaleֵ   coverScale = 1 + (detailsW / coverW - 1) * stage;
+            // 计算cover view的Scale值 若这样不好理解 可以这样看 coverScale = 1 + (detailsW / coverW - 1) * stage;
             float coverScale = 1 - (1 - detailsW / coverW) * stage;
             layout.setScale(coverScale);
         } else { // details view
-            // detailsScaleScaleֵ   coverScale = 1 + (detailsW / coverW - 1) * (1 - stage);
-        	//Ϊ1 - stage ɰ1 - stageĳstage£֪ԭ
+            // 计算detailsScale的Scale值 若这样不好理解 可以这样看 coverScale = 1 + (detailsW / coverW - 1) * (1 - stage);
+        	//至于为何是1 - stage 可把1 - stage改成stage测试下，就知道原因了
             float detailsScale = 1 - (1 - coverW / detailsW) * (1 - stage);
             layout.setScale(detailsScale);
 
@@ -354,8 +354,8 @@ public class UnfoldableView extends FoldableListLayout {
     }
 
     /**
-     * viewת
-     * origin view丸Ƴreplacement viewӽ丸
+     * view转换
+     * 把origin view从其父容器里移除，并把replacement view添加进其父容器中
      * @param origin
      * @param replacement
      * @param params
@@ -365,14 +365,14 @@ public class UnfoldableView extends FoldableListLayout {
 
         if (params == null) params = origin.getLayoutParams();
 
-        //Ƴԭviewµview
+        //移除原view，添加新的view
         int index = parent.indexOfChild(origin);
         parent.removeViewAt(index);
         parent.addView(replacement, index, params);
     }
 
     /**
-     * ȡviewĿʾΧ
+     * 获取view的可显示范围
      * @param view
      * @return
      */
@@ -459,7 +459,7 @@ public class UnfoldableView extends FoldableListLayout {
         }
 
         /**
-         * һviewΪchild view ת
+         * 添加一个view做为child view 用于做翻转动画
          * @param view
          * @param w
          * @param h
@@ -475,7 +475,7 @@ public class UnfoldableView extends FoldableListLayout {
         }
 
         /**
-         *  child view 
+         * 动画结束 清楚所有child view 
          */
         private void clearView() {
             removeAllViews();
@@ -484,32 +484,32 @@ public class UnfoldableView extends FoldableListLayout {
     }
 
     /**
-     * ǰת״̬صӿ
+     * 当前翻转状态回调接口
      */
     public interface OnFoldingListener {
     	
     	/**
-    	 * ǰչʱص
+    	 * 当前处于正在展开时回调
     	 */
         void onUnfolding(UnfoldableView unfoldableView);
 
         /**
-    	 * ǰѾչʱص
+    	 * 当前已经展开完毕时回调
     	 */
         void onUnfolded(UnfoldableView unfoldableView);
 
         /**
-    	 * ǰ۵ʱص
+    	 * 当前处于正在折叠时回调
     	 */
         void onFoldingBack(UnfoldableView unfoldableView);
 
         /**
-    	 * ǰѾ۵ʱص
+    	 * 当前已经折叠完毕时回调
     	 */
         void onFoldedBack(UnfoldableView unfoldableView);
 
         /**
-    	 * ǰչ۵İٷֱȻص
+    	 * 当前展开或折叠的百分比回调
     	 */
         void onFoldProgress(UnfoldableView unfoldableView, float progress);
     }
@@ -4,7 +4,7 @@ import android.graphics.Canvas;
 import android.graphics.Rect;
 
 /**
- * ڸָcanvasЧ
+ * 用于给指定canvas绘制特效
  *
  */
 public interface FoldShading {
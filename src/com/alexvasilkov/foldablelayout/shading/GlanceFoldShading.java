@@ -5,7 +5,7 @@ import android.graphics.*;
 import android.view.Gravity;
 
 /**
- * һЧ
+ * 绘制一个闪光的特效
  *
  */
 public class GlanceFoldShading implements FoldShading {
@@ -8,7 +8,7 @@ import android.util.Log;
 import android.view.Gravity;
 
 /**
- * һ򵥵ĻɲЧ
+ * 一个简单的绘制蒙层特效
  *
  */
 public class SimpleFoldShading implements FoldShading {
@@ -31,7 +31,7 @@ public class SimpleFoldShading implements FoldShading {
     @Override
     public void onPostDraw(Canvas canvas, Rect bounds, float rotation, int gravity) {
         float intencity = getShadowIntencity(rotation, gravity);
-        //0ʾҪһɲ
+        //大于0表示需要绘制一层蒙层
         if (intencity > 0) {
             int alpha = (int) (SHADOW_MAX_ALPHA * intencity);
             mSolidShadow.setAlpha(alpha);
@@ -41,14 +41,14 @@ public class SimpleFoldShading implements FoldShading {
 
     private float getShadowIntencity(float rotation, int gravity) {
         float intencity = 0;
-        //ݵǰתĽǶȺpart viewgravityжǷҪһɲ
+        //根据当前旋转的角度和part view的gravity来判断是否需要在上面绘制一层蒙层
         if (gravity == Gravity.TOP) {
-        	//top part viewת
+        	//这个区间正是top part view正在做旋转
             if (rotation > -90 && rotation < 0) { // (-90; 0) - rotation is applied
                 intencity = -rotation / 90f;
             }
         } else {
-        	//bottom part viewת
+        	//这个区间正是bottom part view正在做旋转
             if (rotation > 0 && rotation < 90) { // (0; 90) - rotation is applied
                 intencity = rotation / 90f;
             }